@@ -16,17 +16,30 @@
 
 package example;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
+import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.MockWebServerPropertySource;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 
 /**
@@ -48,6 +61,9 @@ class ServerOAuth2ResourceServerApplicationITests {
 	@Autowired
 	private WebTestClient rest;
 
+	@Autowired
+	private ConfigurableEnvironment environment;
+
 	@Test
 	void getWhenValidBearerTokenThenAllows() {
 		// @formatter:off
@@ -83,4 +99,38 @@ class ServerOAuth2ResourceServerApplicationITests {
 		// @formatter:on
 	}
 
+	// -- tests with a cold JWK Set cache
+
+	@Test
+	@DirtiesContext(methodMode = MethodMode.BEFORE_METHOD)
+	void getWhenBurstOfRequestsOnColdStartThenFetchesJwkSetOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		try {
+			List<Callable<HttpStatusCode>> requests = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				Consumer<HttpHeaders> token = (i % 2 == 0) ? this.noScopesToken : this.messageReadToken;
+				requests.add(() -> this.rest.get()
+					.uri("/")
+					.headers(token)
+					.exchange()
+					.expectBody()
+					.returnResult()
+					.getStatus());
+			}
+			for (Future<HttpStatusCode> status : executor.invokeAll(requests)) {
+				assertThat(status.get().value()).isEqualTo(200);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertThat(mockWebServer().getRequestCount()).isEqualTo(1);
+	}
+
+	private MockWebServer mockWebServer() {
+		return (MockWebServer) this.environment.getPropertySources()
+			.get(MockWebServerPropertySource.MOCK_WEB_SERVER_PROPERTY_SOURCE_NAME)
+			.getSource();
+	}
+
 }
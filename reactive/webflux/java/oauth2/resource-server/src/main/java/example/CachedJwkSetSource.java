@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Looks up the keys for verifying a {@link SignedJWT} in a remote JWK Set, which is
+ * fetched at most once per time to live.
+ *
+ * <p>
+ * All lookups share a single {@link Mono} of the JWK Set, so that a burst of requests
+ * arriving before the JWK Set is fetched, or while it is fetched again, waits on one
+ * request to the JWK Set endpoint rather than sending one each. A failed fetch is not
+ * remembered, and the next lookup tries again.
+ *
+ * <p>
+ * When no key in the remembered JWK Set matches a token, as when the authorization
+ * server has rotated in a new key, the JWK Set is fetched again before the token is
+ * rejected. Such refetches happen at most once per minimum refetch interval, so that
+ * tokens with unknown key ids cannot flood the JWK Set endpoint.
+ */
+final class CachedJwkSetSource implements Function<SignedJWT, Flux<JWK>> {
+
+	private final Mono<JWKSet> fetch;
+
+	private final Duration timeToLive;
+
+	private final long minimumRefetchInterval;
+
+	private final AtomicReference<Mono<JWKSet>> jwkSet = new AtomicReference<>();
+
+	private final AtomicLong lastRefetch;
+
+	CachedJwkSetSource(WebClient webClient, String jwkSetUri, Duration timeToLive, Duration minimumRefetchInterval) {
+		// @formatter:off
+		this.fetch = webClient.get()
+			.uri(jwkSetUri)
+			.retrieve()
+			.bodyToMono(String.class)
+			.map(CachedJwkSetSource::parse);
+		// @formatter:on
+		this.timeToLive = timeToLive;
+		this.minimumRefetchInterval = minimumRefetchInterval.toNanos();
+		this.lastRefetch = new AtomicLong(System.nanoTime() - this.minimumRefetchInterval);
+		this.jwkSet.set(cached());
+	}
+
+	@Override
+	public Flux<JWK> apply(SignedJWT jwt) {
+		JWKMatcher matcher = JWKMatcher.forJWSHeader(jwt.getHeader());
+		if (matcher == null) {
+			return Flux.empty();
+		}
+		JWKSelector selector = new JWKSelector(matcher);
+		Mono<JWKSet> current = this.jwkSet.get();
+		return current.flatMapMany((jwkSet) -> {
+			List<JWK> keys = selector.select(jwkSet);
+			if (!keys.isEmpty() || !refetch(current)) {
+				return Flux.fromIterable(keys);
+			}
+			return this.jwkSet.get().flatMapIterable(selector::select);
+		});
+	}
+
+	/**
+	 * Replaces the given JWK Set with a fresh fetch, unless another lookup already did,
+	 * or the last refetch was less than the minimum refetch interval ago.
+	 * @param current the JWK Set that has no matching key
+	 * @return whether the JWK Set may have changed
+	 */
+	private boolean refetch(Mono<JWKSet> current) {
+		if (this.jwkSet.get() != current) {
+			return true;
+		}
+		long now = System.nanoTime();
+		long last = this.lastRefetch.get();
+		if (now - last < this.minimumRefetchInterval || !this.lastRefetch.compareAndSet(last, now)) {
+			return false;
+		}
+		this.jwkSet.compareAndSet(current, cached());
+		return true;
+	}
+
+	private Mono<JWKSet> cached() {
+		return this.fetch.cache((jwkSet) -> this.timeToLive, (ex) -> Duration.ZERO, () -> Duration.ZERO);
+	}
+
+	private static JWKSet parse(String body) {
+		try {
+			return JWKSet.parse(body);
+		}
+		catch (ParseException ex) {
+			throw new JwtException("Failed to parse the JWK Set", ex);
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+/**
+ * A {@link ReactiveJwtDecoder} that remembers each successfully decoded {@link Jwt}, so
+ * that a token presented again is neither verified nor parsed again.
+ *
+ * <p>
+ * Tokens are remembered by their SHA-256 hash until they expire, or for at most the
+ * configured time to live, and only so many of them are remembered at once. Requests
+ * presenting the same token at the same time share a single decoding, and tokens that
+ * fail to decode are not remembered. The cache never blocks the calling thread.
+ */
+final class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private final ReactiveJwtDecoder delegate;
+
+	private final Duration timeToLive;
+
+	private final AsyncCache<String, Jwt> jwts;
+
+	CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, Duration timeToLive) {
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.jwts = Caffeine.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfter(Expiry.creating(this::expiresAfter))
+			.buildAsync();
+	}
+
+	@Override
+	public Mono<Jwt> decode(String token) {
+		return Mono.fromFuture(
+				() -> this.jwts.get(hash(token), (key, executor) -> this.delegate.decode(token).toFuture()), true);
+	}
+
+	private Duration expiresAfter(String key, Jwt jwt) {
+		Instant expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return this.timeToLive;
+		}
+		Duration remaining = Duration.between(Instant.now(), expiresAt);
+		if (remaining.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (remaining.compareTo(this.timeToLive) < 0) ? remaining : this.timeToLive;
+	}
+
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * JWT decoding configuration, which shares one fetch of the JWK Set between all
+ * requests and remembers the tokens it has decoded.
+ */
+@Configuration
+public class JwtDecoderConfiguration {
+
+	@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+	String jwkSetUri;
+
+	@Value("${jwk-set.cache.time-to-live:5m}")
+	Duration jwkSetTimeToLive;
+
+	@Value("${jwk-set.cache.minimum-refetch-interval:30s}")
+	Duration jwkSetMinimumRefetchInterval;
+
+	@Value("${jwt.cache.time-to-live:5m}")
+	Duration jwtTimeToLive;
+
+	@Bean
+	ReactiveJwtDecoder jwtDecoder() {
+		CachedJwkSetSource jwkSource = new CachedJwkSetSource(WebClient.create(), this.jwkSetUri,
+				this.jwkSetTimeToLive, this.jwkSetMinimumRefetchInterval);
+		ReactiveJwtDecoder jwtDecoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSource).build();
+		return new CachingReactiveJwtDecoder(jwtDecoder, this.jwtTimeToLive);
+	}
+
+}
@@ -16,28 +16,29 @@
 
 package example;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import example.BulkAclWriter.AceDefinition;
+import example.BulkAclWriter.AclDefinition;
+
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.domain.PrincipalSid;
-import org.springframework.security.acls.jdbc.JdbcMutableAclService;
-import org.springframework.security.acls.model.MutableAcl;
-import org.springframework.security.acls.model.ObjectIdentity;
-import org.springframework.security.authentication.TestingAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 class AclInitializer implements SmartInitializingSingleton {
 
-	private final JdbcMutableAclService acls;
+	private final BulkAclWriter acls;
 
 	private final MessageRepository messages;
 
 	private final TransactionTemplate transactions;
 
-	AclInitializer(JdbcMutableAclService acls, MessageRepository messages, TransactionTemplate transactions) {
+	AclInitializer(BulkAclWriter acls, MessageRepository messages, TransactionTemplate transactions) {
 		this.acls = acls;
 		this.messages = messages;
 		this.transactions = transactions;
@@ -45,22 +46,13 @@ class AclInitializer implements SmartInitializingSingleton {
 
 	@Override
 	public void afterSingletonsInstantiated() {
-		Iterable<Message> messages = this.messages.findAll();
-		for (Message message : messages) {
-			String to = message.getTo();
-			ObjectIdentity id = new ObjectIdentityImpl(Message.class, message.getId());
-			asUser(to, () -> this.transactions.execute((status) -> {
-				MutableAcl acl = AclInitializer.this.acls.createAcl(id);
-				acl.insertAce(0, BasePermission.READ, new PrincipalSid(to), true);
-				return this.acls.updateAcl(acl);
-			}));
+		List<AclDefinition> definitions = new ArrayList<>();
+		for (Message message : this.messages.findAll()) {
+			PrincipalSid to = new PrincipalSid(message.getTo());
+			definitions.add(new AclDefinition(new ObjectIdentityImpl(Message.class, message.getId()), to,
+					List.of(new AceDefinition(to, BasePermission.READ, true))));
 		}
-	}
-
-	private void asUser(String user, Runnable runnable) {
-		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null, "app"));
-		runnable.run();
-		SecurityContextHolder.clearContext();
+		this.transactions.executeWithoutResult((status) -> this.acls.createAcls(definitions));
 	}
 
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.access.PermissionCacheOptimizer;
+import org.springframework.security.acls.domain.ObjectIdentityRetrievalStrategyImpl;
+import org.springframework.security.acls.domain.SidRetrievalStrategyImpl;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.ObjectIdentityRetrievalStrategy;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Loads the ACLs for every element of a {@code @PostFilter} target in one pass so that
+ * the subsequent per-element {@code hasPermission} checks are served from the
+ * {@link org.springframework.security.acls.model.AclCache}.
+ *
+ * <p>
+ * Unlike {@link org.springframework.security.acls.AclPermissionCacheOptimizer}, this
+ * goes straight to the {@link LookupStrategy} so that elements without an ACL are
+ * simply skipped (and later denied) instead of failing the whole request. The lookup
+ * strategy splits the identities into chunks of its configured batch size.
+ */
+final class BatchingAclPermissionCacheOptimizer implements PermissionCacheOptimizer {
+
+	private final LookupStrategy lookupStrategy;
+
+	private final ObjectIdentityRetrievalStrategy oidRetrievalStrategy = new ObjectIdentityRetrievalStrategyImpl();
+
+	private final SidRetrievalStrategy sidRetrievalStrategy = new SidRetrievalStrategyImpl();
+
+	BatchingAclPermissionCacheOptimizer(LookupStrategy lookupStrategy) {
+		this.lookupStrategy = lookupStrategy;
+	}
+
+	@Override
+	public void cachePermissionsFor(Authentication authentication, Collection<?> objects) {
+		if (authentication == null || objects.isEmpty()) {
+			return;
+		}
+		List<ObjectIdentity> objectIdentities = new ArrayList<>(objects.size());
+		for (Object domainObject : objects) {
+			if (domainObject != null) {
+				objectIdentities.add(this.oidRetrievalStrategy.getObjectIdentity(domainObject));
+			}
+		}
+		if (objectIdentities.isEmpty()) {
+			return;
+		}
+		List<Sid> sids = this.sidRetrievalStrategy.getSids(authentication);
+		this.lookupStrategy.readAclsById(objectIdentities, sids);
+	}
+
+}
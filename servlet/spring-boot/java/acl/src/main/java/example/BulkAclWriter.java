@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+ * Creates ACLs for many object identities at once.
+ *
+ * <p>
+ * Where {@link org.springframework.security.acls.jdbc.JdbcMutableAclService} issues
+ * several statements per ACL and per entry, this writes the {@code acl_sid},
+ * {@code acl_class}, {@code acl_object_identity} and {@code acl_entry} rows using JDBC
+ * batch statements, a chunk of ACLs at a time. The caller is responsible for running it
+ * in a transaction.
+ *
+ * <p>
+ * ACLs written this way bypass the
+ * {@link org.springframework.security.acls.model.AclCache}, so it is only meant for
+ * object identities that do not have an ACL yet.
+ */
+@Component
+class BulkAclWriter {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final NamedParameterJdbcTemplate namedJdbc;
+
+	BulkAclWriter(DataSource dataSource) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.namedJdbc = new NamedParameterJdbcTemplate(this.jdbc);
+	}
+
+	void createAcls(List<AclDefinition> acls) {
+		if (acls.isEmpty()) {
+			return;
+		}
+		Map<String, Long> classIds = classIds(acls);
+		Map<Sid, Long> sidIds = sidIds(acls);
+		for (int from = 0; from < acls.size(); from += CHUNK_SIZE) {
+			List<AclDefinition> chunk = acls.subList(from, Math.min(from + CHUNK_SIZE, acls.size()));
+			insertObjectIdentities(chunk, classIds, sidIds);
+			Map<ObjectIdentity, Long> objectIdentityIds = objectIdentityIds(chunk, classIds);
+			insertEntries(chunk, objectIdentityIds, sidIds);
+		}
+	}
+
+	private Map<String, Long> classIds(List<AclDefinition> acls) {
+		Map<String, Long> classIds = new HashMap<>();
+		for (AclDefinition acl : acls) {
+			classIds.computeIfAbsent(acl.objectIdentity().getType(), this::classId);
+		}
+		return classIds;
+	}
+
+	private Long classId(String type) {
+		List<Long> ids = this.jdbc.queryForList("select id from acl_class where class = ?", Long.class, type);
+		if (ids.isEmpty()) {
+			this.jdbc.update("insert into acl_class (class) values (?)", type);
+			return this.jdbc.queryForObject("select id from acl_class where class = ?", Long.class, type);
+		}
+		return ids.get(0);
+	}
+
+	private Map<Sid, Long> sidIds(List<AclDefinition> acls) {
+		Set<Sid> sids = new LinkedHashSet<>();
+		for (AclDefinition acl : acls) {
+			sids.add(acl.owner());
+			for (AceDefinition ace : acl.entries()) {
+				sids.add(ace.sid());
+			}
+		}
+		Map<Sid, Long> sidIds = new HashMap<>();
+		for (Sid sid : sids) {
+			sidIds.put(sid, sidId(sid));
+		}
+		return sidIds;
+	}
+
+	private Long sidId(Sid sid) {
+		boolean principal = isPrincipal(sid);
+		String name = name(sid);
+		String select = "select id from acl_sid where principal = ? and sid = ?";
+		List<Long> ids = this.jdbc.queryForList(select, Long.class, principal, name);
+		if (ids.isEmpty()) {
+			this.jdbc.update("insert into acl_sid (principal, sid) values (?, ?)", principal, name);
+			return this.jdbc.queryForObject(select, Long.class, principal, name);
+		}
+		return ids.get(0);
+	}
+
+	private void insertObjectIdentities(List<AclDefinition> chunk, Map<String, Long> classIds,
+			Map<Sid, Long> sidIds) {
+		String sql = "insert into acl_object_identity "
+				+ "(object_id_class, object_id_identity, owner_sid, entries_inheriting) values (?, ?, ?, ?)";
+		this.jdbc.batchUpdate(sql, chunk, chunk.size(), (ps, acl) -> {
+			ps.setLong(1, classIds.get(acl.objectIdentity().getType()));
+			ps.setString(2, acl.objectIdentity().getIdentifier().toString());
+			ps.setLong(3, sidIds.get(acl.owner()));
+			ps.setBoolean(4, true);
+		});
+	}
+
+	private Map<ObjectIdentity, Long> objectIdentityIds(List<AclDefinition> chunk, Map<String, Long> classIds) {
+		Map<String, List<String>> identifiersByType = new LinkedHashMap<>();
+		for (AclDefinition acl : chunk) {
+			ObjectIdentity objectIdentity = acl.objectIdentity();
+			identifiersByType.computeIfAbsent(objectIdentity.getType(), (type) -> new ArrayList<>())
+				.add(objectIdentity.getIdentifier().toString());
+		}
+		Map<String, Long> idsByKey = new HashMap<>();
+		String sql = "select id, object_id_identity from acl_object_identity "
+				+ "where object_id_class = :classId and object_id_identity in (:identifiers)";
+		identifiersByType.forEach((type, identifiers) -> {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("classId", classIds.get(type))
+				.addValue("identifiers", identifiers);
+			this.namedJdbc.query(sql, parameters, (rs) -> {
+				idsByKey.put(type + ":" + rs.getString("object_id_identity"), rs.getLong("id"));
+			});
+		});
+		Map<ObjectIdentity, Long> objectIdentityIds = new HashMap<>();
+		for (AclDefinition acl : chunk) {
+			ObjectIdentity objectIdentity = acl.objectIdentity();
+			String key = objectIdentity.getType() + ":" + objectIdentity.getIdentifier();
+			objectIdentityIds.put(objectIdentity, idsByKey.get(key));
+		}
+		return objectIdentityIds;
+	}
+
+	private void insertEntries(List<AclDefinition> chunk, Map<ObjectIdentity, Long> objectIdentityIds,
+			Map<Sid, Long> sidIds) {
+		List<Object[]> rows = new ArrayList<>();
+		for (AclDefinition acl : chunk) {
+			Long objectIdentityId = objectIdentityIds.get(acl.objectIdentity());
+			List<AceDefinition> entries = acl.entries();
+			for (int order = 0; order < entries.size(); order++) {
+				AceDefinition ace = entries.get(order);
+				rows.add(new Object[] { objectIdentityId, order, sidIds.get(ace.sid()), ace.permission().getMask(),
+						ace.granting(), false, false });
+			}
+		}
+		if (rows.isEmpty()) {
+			return;
+		}
+		String sql = "insert into acl_entry (acl_object_identity, ace_order, sid, mask, granting, audit_success, "
+				+ "audit_failure) values (?, ?, ?, ?, ?, ?, ?)";
+		this.jdbc.batchUpdate(sql, rows);
+	}
+
+	private static boolean isPrincipal(Sid sid) {
+		Assert.isTrue(sid instanceof PrincipalSid || sid instanceof GrantedAuthoritySid,
+				() -> "Unsupported sid implementation: " + sid);
+		return sid instanceof PrincipalSid;
+	}
+
+	private static String name(Sid sid) {
+		if (sid instanceof PrincipalSid principal) {
+			return principal.getPrincipal();
+		}
+		return ((GrantedAuthoritySid) sid).getGrantedAuthority();
+	}
+
+	/**
+	 * An ACL to be created, along with its entries in order.
+	 */
+	record AclDefinition(ObjectIdentity objectIdentity, Sid owner, List<AceDefinition> entries) {
+
+	}
+
+	/**
+	 * An entry of an {@link AclDefinition}.
+	 */
+	record AceDefinition(Sid sid, Permission permission, boolean granting) {
+
+	}
+
+}
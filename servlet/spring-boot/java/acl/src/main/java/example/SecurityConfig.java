@@ -16,12 +16,19 @@
 
 package example;
 
+import java.time.Duration;
+
 import javax.sql.DataSource;
 
-import org.springframework.cache.Cache;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.PermissionCacheOptimizer;
 import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.acls.AclPermissionEvaluator;
@@ -33,6 +40,7 @@ import org.springframework.security.acls.domain.SpringCacheBasedAclCache;
 import org.springframework.security.acls.jdbc.BasicLookupStrategy;
 import org.springframework.security.acls.jdbc.JdbcMutableAclService;
 import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.Acl;
 import org.springframework.security.acls.model.AclCache;
 import org.springframework.security.acls.model.AclService;
 import org.springframework.security.acls.model.PermissionGrantingStrategy;
@@ -46,13 +54,26 @@ import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 @Configuration
 class SecurityConfig {
 
+	static final int ACL_LOOKUP_BATCH_SIZE = 500;
+
+	static final long ACL_CACHE_MAXIMUM_WEIGHT = 100_000;
+
+	static final Duration ACL_CACHE_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
 	@Bean
-	static MethodSecurityExpressionHandler expressionHandler(AclPermissionEvaluator aclPermissionEvaluator) {
+	static MethodSecurityExpressionHandler expressionHandler(AclPermissionEvaluator aclPermissionEvaluator,
+			PermissionCacheOptimizer permissionCacheOptimizer) {
 		final DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
 		expressionHandler.setPermissionEvaluator(aclPermissionEvaluator);
+		expressionHandler.setPermissionCacheOptimizer(permissionCacheOptimizer);
 		return expressionHandler;
 	}
 
+	@Bean
+	static PermissionCacheOptimizer permissionCacheOptimizer(LookupStrategy lookupStrategy) {
+		return new BatchingAclPermissionCacheOptimizer(lookupStrategy);
+	}
+
 	@Bean
 	static AclPermissionEvaluator aclPermissionEvaluator(AclService aclService) {
 		return new AclPermissionEvaluator(aclService);
@@ -66,14 +87,38 @@ class SecurityConfig {
 	@Bean
 	static LookupStrategy lookupStrategy(DataSource dataSource, AclCache cache,
 			AclAuthorizationStrategy aclAuthorizationStrategy, PermissionGrantingStrategy permissionGrantingStrategy) {
-		return new BasicLookupStrategy(dataSource, cache, aclAuthorizationStrategy, permissionGrantingStrategy);
+		BasicLookupStrategy lookupStrategy = new BasicLookupStrategy(dataSource, cache, aclAuthorizationStrategy,
+				permissionGrantingStrategy);
+		lookupStrategy.setBatchSize(ACL_LOOKUP_BATCH_SIZE);
+		return lookupStrategy;
 	}
 
 	@Bean
-	static AclCache aclCache(PermissionGrantingStrategy permissionGrantingStrategy,
+	static AclCache aclCache(CaffeineCache aclCacheBackend, PermissionGrantingStrategy permissionGrantingStrategy,
 			AclAuthorizationStrategy aclAuthorizationStrategy) {
-		Cache cache = new ConcurrentMapCache("aclCache");
-		return new SpringCacheBasedAclCache(cache, permissionGrantingStrategy, aclAuthorizationStrategy);
+		return new SpringCacheBasedAclCache(aclCacheBackend, permissionGrantingStrategy, aclAuthorizationStrategy);
+	}
+
+	/**
+	 * A bounded cache for ACLs. Each ACL is weighed by its number of entries, and
+	 * entries expire after being written so that changes made outside of this
+	 * application are eventually picked up.
+	 */
+	@Bean
+	static CaffeineCache aclCacheBackend() {
+		Cache<Object, Object> cache = Caffeine.newBuilder()
+			.maximumWeight(ACL_CACHE_MAXIMUM_WEIGHT)
+			.weigher(SecurityConfig::aclWeight)
+			.expireAfterWrite(ACL_CACHE_EXPIRE_AFTER_WRITE)
+			.recordStats()
+			.build();
+		return new CaffeineCache("aclCache", cache, false);
+	}
+
+	@Bean
+	MeterBinder aclCacheMetrics(CaffeineCache aclCacheBackend) {
+		return (registry) -> CaffeineCacheMetrics.monitor(registry, aclCacheBackend.getNativeCache(),
+				aclCacheBackend.getName());
 	}
 
 	@Bean
@@ -86,6 +131,13 @@ class SecurityConfig {
 		return new DefaultPermissionGrantingStrategy(new ConsoleAuditLogger());
 	}
 
+	private static int aclWeight(Object key, Object value) {
+		if (value instanceof Acl acl) {
+			return 1 + acl.getEntries().size();
+		}
+		return 1;
+	}
+
 	@Bean
 	UserDetailsService userDetailsService() {
 		return new InMemoryUserDetailsManager(
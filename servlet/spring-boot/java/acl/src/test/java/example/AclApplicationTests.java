@@ -22,6 +22,9 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.test.context.support.WithMockUser;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +35,12 @@ class AclApplicationTests {
 	@Autowired
 	MessageRepository repository;
 
+	@Autowired
+	MessageController controller;
+
+	@Autowired
+	AclCache aclCache;
+
 	@Test
 	@WithMockUser("rob")
 	void findAllOnlyToCurrentUserCantReadMessage() {
@@ -51,4 +60,16 @@ class AclApplicationTests {
 
 	}
 
+	@Test
+	@WithMockUser("rob")
+	void getMessagesWhenFilteredThenAclsLoadedForWholeCollection() {
+		this.aclCache.clearCache();
+		Iterable<Message> messages = this.controller.getMessages();
+		assertThat(messages).extracting(Message::getTo).containsOnly("rob").hasSize(3);
+		for (Message message : this.repository.findAll()) {
+			ObjectIdentity id = new ObjectIdentityImpl(Message.class, message.getId());
+			assertThat(this.aclCache.getFromCache(id)).isNotNull();
+		}
+	}
+
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Rejects JWTs whose {@code jti} has been revoked.
+ *
+ * <p>
+ * Revoked ids are read from a file with one {@code <jti> <exp>} line per revoked token,
+ * where {@code exp} is the token's expiry in epoch seconds. The file is polled for lines
+ * appended since it was last read, and is read again from the start when it shrinks. Ids
+ * are forgotten once their token has expired, since the token is then rejected anyway.
+ *
+ * <p>
+ * Checking a token first consults a Bloom filter of the revoked ids, which answers for
+ * almost every token that has not been revoked without a map lookup. Only when the
+ * filter reports a possible match is the exact set of revoked ids consulted. Tokens
+ * without a {@code jti} cannot be revoked.
+ */
+public final class JwtRevocationList implements OAuth2TokenValidator<Jwt>, AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(JwtRevocationList.class);
+
+	private static final OAuth2Error REVOKED = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+			"The token has been revoked", null);
+
+	/**
+	 * 2^24 bits, or 2 MiB, keeping false positives around 0.2% at a million revoked ids.
+	 */
+	private static final int FILTER_BITS = 1 << 24;
+
+	private static final int FILTER_HASHES = 4;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path file;
+
+	private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+		Thread thread = new Thread(runnable, "jwt-revocation-list");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile AtomicLongArray filter = new AtomicLongArray(FILTER_BITS / Long.SIZE);
+
+	private long position;
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Creates a revocation list fed from the given file.
+	 * @param file the file listing the revoked ids, which need not exist yet
+	 * @param pollInterval how often to read the lines appended to the file
+	 */
+	public JwtRevocationList(Path file, Duration pollInterval) {
+		this.file = file;
+		refresh();
+		long period = pollInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::refreshQuietly, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public OAuth2TokenValidatorResult validate(Jwt jwt) {
+		String jti = jwt.getId();
+		if (jti != null && isRevoked(jti)) {
+			return OAuth2TokenValidatorResult.failure(REVOKED);
+		}
+		return OAuth2TokenValidatorResult.success();
+	}
+
+	/**
+	 * Whether the token with the given id has been revoked.
+	 * @param jti the token's id
+	 * @return whether it has been revoked
+	 */
+	public boolean isRevoked(String jti) {
+		return mightContain(this.filter, jti) && this.revoked.containsKey(jti);
+	}
+
+	/**
+	 * Use this {@link Clock} to tell whether a revoked token has expired.
+	 * @param clock the clock to use
+	 */
+	public void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Reads the lines appended to the file since it was last read, and forgets the ids of
+	 * tokens that have expired.
+	 */
+	public synchronized void refresh() {
+		try {
+			read();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to read the revoked tokens from " + this.file, ex);
+		}
+		prune();
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Failed to refresh the revoked tokens, will retry", ex);
+		}
+	}
+
+	private void read() throws IOException {
+		if (!Files.exists(this.file)) {
+			return;
+		}
+		try (FileChannel revocations = FileChannel.open(this.file, StandardOpenOption.READ)) {
+			if (revocations.size() < this.position) {
+				this.revoked.clear();
+				this.filter = new AtomicLongArray(FILTER_BITS / Long.SIZE);
+				this.position = 0;
+			}
+			revocations.position(this.position);
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			while (revocations.read(buffer) != -1) {
+				byte[] bytes = buffer.array();
+				int start = 0;
+				for (int i = 0; i < buffer.position(); i++) {
+					if (bytes[i] == '\n') {
+						line.write(bytes, start, i - start);
+						this.position += line.size() + 1;
+						add(line.toString(StandardCharsets.UTF_8).trim());
+						line.reset();
+						start = i + 1;
+					}
+				}
+				line.write(bytes, start, buffer.position() - start);
+				buffer.clear();
+			}
+			// what is left is a line still being written, read again once it ends
+		}
+	}
+
+	private void add(String line) {
+		int separator = line.indexOf(' ');
+		if (line.isEmpty() || line.startsWith("#") || separator == -1) {
+			return;
+		}
+		String jti = line.substring(0, separator);
+		Instant expiresAt;
+		try {
+			expiresAt = Instant.ofEpochSecond(Long.parseLong(line.substring(separator + 1).trim()));
+		}
+		catch (NumberFormatException ex) {
+			logger.warn("Skipping malformed revocation '" + line + "'");
+			return;
+		}
+		if (expiresAt.isAfter(this.clock.instant())) {
+			this.revoked.put(jti, expiresAt);
+			put(this.filter, jti);
+		}
+	}
+
+	private void prune() {
+		Instant now = this.clock.instant();
+		if (this.revoked.values().removeIf((expiresAt) -> !expiresAt.isAfter(now))) {
+			AtomicLongArray filter = new AtomicLongArray(FILTER_BITS / Long.SIZE);
+			this.revoked.keySet().forEach((jti) -> put(filter, jti));
+			this.filter = filter;
+		}
+	}
+
+	private static void put(AtomicLongArray filter, String jti) {
+		int hash = jti.hashCode();
+		int step = mix(hash);
+		for (int i = 0; i < FILTER_HASHES; i++) {
+			int bit = (hash + i * step) & (FILTER_BITS - 1);
+			long mask = 1L << bit;
+			filter.getAndUpdate(bit >>> 6, (word) -> word | mask);
+		}
+	}
+
+	private static boolean mightContain(AtomicLongArray filter, String jti) {
+		int hash = jti.hashCode();
+		int step = mix(hash);
+		for (int i = 0; i < FILTER_HASHES; i++) {
+			int bit = (hash + i * step) & (FILTER_BITS - 1);
+			if ((filter.get(bit >>> 6) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return hash | 1;
+	}
+
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+	}
+
+}
@@ -16,17 +16,33 @@
 
 package example;
 
+import java.nio.file.Path;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.factories.DefaultJWSSignerFactory;
+import com.nimbusds.jose.jwk.Curve;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -34,7 +50,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
@@ -57,6 +72,18 @@ public class RestConfig {
 	@Value("${jwt.private.key}")
 	RSAPrivateKey priv;
 
+	@Value("${jwt.cache.time-to-live:5m}")
+	Duration timeToLive;
+
+	@Value("${jwt.signer:rsa}")
+	String signer;
+
+	@Value("${jwt.revocation.file:revoked-tokens.txt}")
+	Path revocationFile;
+
+	@Value("${jwt.revocation.poll-interval:10s}")
+	Duration revocationPollInterval;
+
 	@Bean
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		// @formatter:off
@@ -89,15 +116,53 @@ public class RestConfig {
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return NimbusJwtDecoder.withPublicKey(this.key).build();
+	CachingJwtDecoder jwtDecoder(JWK signingKey, JwtRevocationList revocationList) {
+		RSAKey rsaKey = rsaKey();
+		List<JWK> keys = rsaKey.equals(signingKey) ? List.of(rsaKey) : List.of(rsaKey, signingKey);
+		JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(keys).toPublicJWKSet());
+		ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+				Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256, JWSAlgorithm.EdDSA), jwks));
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(new NimbusJwtDecoder(jwtProcessor), this.timeToLive);
+		jwtDecoder.setJwtValidator(revocationList);
+		return jwtDecoder;
+	}
+
+	@Bean
+	JwtRevocationList revocationList() {
+		return new JwtRevocationList(this.revocationFile, this.revocationPollInterval);
 	}
 
 	@Bean
 	JwtEncoder jwtEncoder() {
-		JWK jwk = new RSAKey.Builder(this.key).privateKey(this.priv).build();
-		JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
+		JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(rsaKey()));
 		return new NimbusJwtEncoder(jwks);
 	}
 
+	@Bean
+	JWK signingKey() throws JOSEException {
+		return switch (this.signer) {
+			case "rsa" -> rsaKey();
+			case "ec" -> new ECKeyGenerator(Curve.P_256).keyID("ec").algorithm(JWSAlgorithm.ES256).generate();
+			case "eddsa" ->
+				new OctetKeyPairGenerator(Curve.Ed25519).keyID("eddsa").algorithm(JWSAlgorithm.EdDSA).generate();
+			default -> throw new IllegalArgumentException("Unsupported jwt.signer " + this.signer);
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty("jwt.signer")
+	TemplateJwtIssuer jwtIssuer(JWK signingKey) throws JOSEException {
+		JWSAlgorithm algorithm = (JWSAlgorithm) signingKey.getAlgorithm();
+		JWSHeader header = new JWSHeader.Builder(algorithm).keyID(signingKey.getKeyID())
+			.type(JOSEObjectType.JWT)
+			.build();
+		return new TemplateJwtIssuer(new DefaultJWSSignerFactory().createJWSSigner(signingKey, algorithm), header,
+				"self");
+	}
+
+	private RSAKey rsaKey() {
+		return new RSAKey.Builder(this.key).privateKey(this.priv).keyID("rsa").algorithm(JWSAlgorithm.RS256).build();
+	}
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+/**
+ * Issues signed JWTs with a fixed header and issuer, for when issuing tokens is on the
+ * hot path.
+ *
+ * <p>
+ * Unlike {@link org.springframework.security.oauth2.jwt.NimbusJwtEncoder}, which selects
+ * a key, builds a {@link JWSSigner} and serializes every header and claim for each token,
+ * this reuses one {@link JWSSigner}, encodes the header once, and only serializes the
+ * claims that change from one token to the next onto a pre-serialized template.
+ */
+public final class TemplateJwtIssuer {
+
+	private final JWSSigner signer;
+
+	private final JWSHeader header;
+
+	private final String encodedHeader;
+
+	private final String claimsTemplate;
+
+	/**
+	 * Creates an issuer.
+	 * @param signer the signer, which must be safe to use from several threads at once
+	 * @param header the header of every token, naming the signer's algorithm
+	 * @param issuer the {@code iss} claim of every token
+	 */
+	public TemplateJwtIssuer(JWSSigner signer, JWSHeader header, String issuer) {
+		this.signer = signer;
+		this.header = header;
+		this.encodedHeader = header.toBase64URL() + ".";
+		this.claimsTemplate = "{\"iss\":" + quote(issuer);
+	}
+
+	/**
+	 * Issues a token with a random {@code jti}.
+	 * @param subject the {@code sub} claim
+	 * @param scope the {@code scope} claim
+	 * @param issuedAt the {@code iat} claim
+	 * @param expiresAt the {@code exp} claim
+	 * @return the serialized token
+	 */
+	public String issue(String subject, String scope, Instant issuedAt, Instant expiresAt) {
+		// @formatter:off
+		String claims = new StringBuilder(this.claimsTemplate)
+				.append(",\"jti\":").append(quote(UUID.randomUUID().toString()))
+				.append(",\"sub\":").append(quote(subject))
+				.append(",\"scope\":").append(quote(scope))
+				.append(",\"iat\":").append(issuedAt.getEpochSecond())
+				.append(",\"exp\":").append(expiresAt.getEpochSecond())
+				.append('}')
+				.toString();
+		// @formatter:on
+		String signingInput = this.encodedHeader + Base64URL.encode(claims);
+		try {
+			Base64URL signature = this.signer.sign(this.header, signingInput.getBytes(StandardCharsets.US_ASCII));
+			return signingInput + "." + signature;
+		}
+		catch (JOSEException ex) {
+			throw new JwtEncodingException("Failed to sign the token", ex);
+		}
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+}
@@ -17,8 +17,12 @@
 package example.web;
 
 import java.time.Instant;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+import example.TemplateJwtIssuer;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -39,6 +43,9 @@ public class TokenController {
 	@Autowired
 	JwtEncoder encoder;
 
+	@Autowired
+	ObjectProvider<TemplateJwtIssuer> issuer;
+
 	@PostMapping("/token")
 	public String token(Authentication authentication) {
 		Instant now = Instant.now();
@@ -47,8 +54,15 @@ public class TokenController {
 		String scope = authentication.getAuthorities().stream()
 				.map(GrantedAuthority::getAuthority)
 				.collect(Collectors.joining(" "));
+		// @formatter:on
+		TemplateJwtIssuer issuer = this.issuer.getIfAvailable();
+		if (issuer != null) {
+			return issuer.issue(authentication.getName(), scope, now, now.plusSeconds(expiry));
+		}
+		// @formatter:off
 		JwtClaimsSet claims = JwtClaimsSet.builder()
 				.issuer("self")
+				.id(UUID.randomUUID().toString())
 				.issuedAt(now)
 				.expiresAt(now.plusSeconds(expiry))
 				.subject(authentication.getName())
@@ -16,15 +16,30 @@
 
 package example.web;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import example.JwtRevocationList;
 import example.RestConfig;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -40,9 +55,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @Import(RestConfig.class)
 class HelloControllerTests {
 
+	@TempDir
+	static Path revocations;
+
 	@Autowired
 	MockMvc mvc;
 
+	@Autowired
+	JwtRevocationList revocationList;
+
+	@DynamicPropertySource
+	static void revocationFile(DynamicPropertyRegistry registry) {
+		registry.add("jwt.revocation.file", () -> revocations.resolve("revoked-tokens.txt").toString());
+	}
+
 	@Test
 	void rootWhenAuthenticatedThenSaysHelloUser() throws Exception {
 		// @formatter:off
@@ -59,6 +85,32 @@ class HelloControllerTests {
 		// @formatter:on
 	}
 
+	@Test
+	void rootWhenTokenRevokedThen401() throws Exception {
+		// @formatter:off
+		MvcResult result = this.mvc.perform(post("/token")
+			.with(httpBasic("user", "password")))
+			.andExpect(status().isOk())
+			.andReturn();
+
+		String token = result.getResponse().getContentAsString();
+
+		this.mvc.perform(get("/")
+			.header("Authorization", "Bearer " + token))
+			.andExpect(status().isOk());
+
+		JWTClaimsSet claims = SignedJWT.parse(token).getJWTClaimsSet();
+		String revocation = claims.getJWTID() + " " + claims.getExpirationTime().toInstant().getEpochSecond() + "\n";
+		Files.writeString(revocations.resolve("revoked-tokens.txt"), revocation, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+		this.revocationList.refresh();
+
+		this.mvc.perform(get("/")
+			.header("Authorization", "Bearer " + token))
+			.andExpect(status().isUnauthorized());
+		// @formatter:on
+	}
+
 	@Test
 	void rootWhenUnauthenticatedThen401() throws Exception {
 		// @formatter:off
@@ -75,4 +127,49 @@ class HelloControllerTests {
 		// @formatter:on
 	}
 
+	@Nested
+	@TestPropertySource(properties = "jwt.signer=ec")
+	class EcSigner {
+
+		@Autowired
+		MockMvc mvc;
+
+		@Test
+		void rootWhenAuthenticatedThenSaysHelloUser() throws Exception {
+			assertTokenIsAccepted(this.mvc, "ES256");
+		}
+
+	}
+
+	@Nested
+	@TestPropertySource(properties = "jwt.signer=eddsa")
+	class EdDsaSigner {
+
+		@Autowired
+		MockMvc mvc;
+
+		@Test
+		void rootWhenAuthenticatedThenSaysHelloUser() throws Exception {
+			assertTokenIsAccepted(this.mvc, "EdDSA");
+		}
+
+	}
+
+	private static void assertTokenIsAccepted(MockMvc mvc, String algorithm) throws Exception {
+		// @formatter:off
+		MvcResult result = mvc.perform(post("/token")
+			.with(httpBasic("user", "password")))
+			.andExpect(status().isOk())
+			.andReturn();
+
+		String token = result.getResponse().getContentAsString();
+		assertThat(JWSHeader.parse(Base64URL.from(token.substring(0, token.indexOf('.')))).getAlgorithm().getName())
+			.isEqualTo(algorithm);
+
+		mvc.perform(get("/")
+			.header("Authorization", "Bearer " + token))
+			.andExpect(content().string("Hello, user!"));
+		// @formatter:on
+	}
+
 }
@@ -16,6 +16,8 @@
 
 package example;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,10 +26,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
-import static org.springframework.security.config.Customizer.withDefaults;
-
 /**
  * OAuth resource configuration.
  *
@@ -37,26 +38,43 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @EnableWebSecurity
 public class OAuth2ResourceServerSecurityConfiguration {
 
+	private final InternedAuthoritiesConverter authorities = new InternedAuthoritiesConverter("message:read",
+			"message:write");
+
 	@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
 	String jwkSetUri;
 
+	@Value("${jwt.cache.time-to-live:5m}")
+	Duration timeToLive;
+
 	@Bean
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		// @formatter:off
 		http
 				.authorizeHttpRequests((authorize) -> authorize
-						.requestMatchers(HttpMethod.GET, "/message/**").hasAuthority("SCOPE_message:read")
-						.requestMatchers(HttpMethod.POST, "/message/**").hasAuthority("SCOPE_message:write")
+						.requestMatchers(HttpMethod.GET, "/message/**")
+								.access(this.authorities.hasScope("message:read"))
+						.requestMatchers(HttpMethod.POST, "/message/**")
+								.access(this.authorities.hasScope("message:write"))
 						.anyRequest().authenticated()
 				)
-				.oauth2ResourceServer((oauth2) -> oauth2.jwt(withDefaults()));
+				.oauth2ResourceServer((oauth2) -> oauth2
+						.jwt((jwt) -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
+				);
 		// @formatter:on
 		return http.build();
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build();
+	CachingJwtDecoder jwtDecoder() {
+		JwtDecoder jwtDecoder = NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build();
+		return new CachingJwtDecoder(jwtDecoder, this.timeToLive);
+	}
+
+	private JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(this.authorities);
+		return jwtAuthenticationConverter;
 	}
 
 }
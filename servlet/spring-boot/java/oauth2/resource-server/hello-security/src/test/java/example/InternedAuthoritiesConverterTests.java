@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link InternedAuthoritiesConverter}.
+ */
+class InternedAuthoritiesConverterTests {
+
+	private final InternedAuthoritiesConverter converter = new InternedAuthoritiesConverter("message:read");
+
+	@Test
+	void convertWhenScopeStringThenInternedAuthorities() {
+		Jwt jwt = jwt().claim("scope", "message:read  other").build();
+
+		List<GrantedAuthority> first = List.copyOf(this.converter.convert(jwt));
+		List<GrantedAuthority> second = List.copyOf(this.converter.convert(jwt));
+
+		assertThat(first).extracting(GrantedAuthority::getAuthority)
+			.containsExactly("SCOPE_message:read", "SCOPE_other");
+		assertThat(second.get(0)).isSameAs(first.get(0));
+	}
+
+	@Test
+	void convertWhenScpCollectionThenAuthorities() {
+		Jwt jwt = jwt().claim("scp", List.of("message:read")).build();
+
+		assertThat(this.converter.convert(jwt)).extracting(GrantedAuthority::getAuthority)
+			.containsExactly("SCOPE_message:read");
+	}
+
+	@Test
+	void convertWhenScopeMalformedThenNoAuthorities() {
+		Jwt jwt = jwt().claim("scope", 42).claim("scp", List.of("message:read")).build();
+
+		assertThat(this.converter.convert(jwt)).isEmpty();
+	}
+
+	private static Jwt.Builder jwt() {
+		return Jwt.withTokenValue("token").header("alg", "none").subject("subject");
+	}
+
+}
@@ -16,17 +16,64 @@
 
 package example;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.MockWebServerPropertySource;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -38,7 +85,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  *
  * @author Josh Cummings
  */
-@SpringBootTest
+@SpringBootTest(properties = "sample.jwk-set.minimum-refresh-interval=5s")
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class OAuth2JweResourceServerApplicationITests {
@@ -50,6 +97,12 @@ class OAuth2JweResourceServerApplicationITests {
 	@Autowired
 	MockMvc mvc;
 
+	@Autowired
+	BackgroundRefreshingJwkSource jwkSource;
+
+	@Autowired
+	ConfigurableEnvironment environment;
+
 	@Test
 	void performWhenValidBearerTokenThenAllows() throws Exception {
 
@@ -83,6 +136,136 @@ class OAuth2JweResourceServerApplicationITests {
 		// @formatter:on
 	}
 
+	// -- tests with key rotation
+
+	@Test
+	void performWhenJwkSetRefreshingThenServesPreviousKeys() throws Exception {
+		MockWebServer server = mockWebServer();
+		Dispatcher dispatcher = server.getDispatcher();
+		CountDownLatch rotated = new CountDownLatch(1);
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				rotated.await(10, TimeUnit.SECONDS);
+				return dispatcher.dispatch(request);
+			}
+		});
+		int before = server.getRequestCount();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			CompletableFuture<JWKSet> rotation = this.jwkSource.refresh();
+			List<Callable<Integer>> requests = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				requests.add(() -> {
+					assertThat(this.jwkSource.refresh()).isSameAs(rotation);
+					return this.mvc.perform(get("/").with(bearerToken(this.noScopesToken)))
+						.andReturn()
+						.getResponse()
+						.getStatus();
+				});
+			}
+			for (Future<Integer> status : executor.invokeAll(requests, 5, TimeUnit.SECONDS)) {
+				assertThat(status.get()).isEqualTo(200);
+			}
+			assertThat(rotation).isNotDone();
+			rotated.countDown();
+			rotation.get(10, TimeUnit.SECONDS);
+		}
+		finally {
+			rotated.countDown();
+			executor.shutdown();
+			server.setDispatcher(dispatcher);
+		}
+		assertThat(server.getRequestCount() - before).isEqualTo(1);
+	}
+
+	@Test
+	void performWhenSignedWithRotatedKeyThenRejectedWithoutWaitingUntilJwkSetRefreshed() throws Exception {
+		RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("rotated").generate();
+		List<JWK> keys = new ArrayList<>(this.jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null));
+		keys.add(rotatedKey.toPublicJWK());
+		String rotatedJwkSet = new JWKSet(keys).toString();
+		String rotatedToken = token(rotatedKey);
+		MockWebServer server = mockWebServer();
+		Dispatcher dispatcher = server.getDispatcher();
+		CountDownLatch rotated = new CountDownLatch(1);
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				rotated.await(10, TimeUnit.SECONDS);
+				return new MockResponse().setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.setBody(rotatedJwkSet);
+			}
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// the unknown key refreshes the JWK Set once the minimum refresh interval since
+			// the last refresh has passed, and is rejected until then
+			int before = server.getRequestCount();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+			while (server.getRequestCount() == before) {
+				assertThat(System.nanoTime()).isLessThan(deadline);
+				assertThat(statusOf(executor, rotatedToken)).isEqualTo(401);
+				Thread.sleep(100);
+			}
+			// while the refresh is held, the unknown key is rejected without waiting for it
+			assertThat(statusOf(executor, rotatedToken)).isEqualTo(401);
+			rotated.countDown();
+			while (statusOf(executor, rotatedToken) != 200) {
+				assertThat(System.nanoTime()).isLessThan(deadline);
+				Thread.sleep(100);
+			}
+			// another unknown key inside the minimum refresh interval does not refresh again
+			RSAKey unknownKey = new RSAKeyGenerator(2048).keyID("unknown").generate();
+			assertThat(statusOf(executor, token(unknownKey))).isEqualTo(401);
+			assertThat(server.getRequestCount() - before).isEqualTo(1);
+		}
+		finally {
+			rotated.countDown();
+			executor.shutdown();
+			server.setDispatcher(dispatcher);
+		}
+	}
+
+	/**
+	 * Performs a request with the token, failing if it waits for the JWK Set endpoint.
+	 */
+	private int statusOf(ExecutorService executor, String token) throws Exception {
+		Future<Integer> status = executor.submit(() -> this.mvc.perform(get("/").with(bearerToken(token)))
+			.andReturn()
+			.getResponse()
+			.getStatus());
+		return status.get(5, TimeUnit.SECONDS);
+	}
+
+	private static String token(RSAKey signingKey) throws JOSEException, IOException, GeneralSecurityException {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("subject")
+			.expirationTime(Date.from(Instant.now().plusSeconds(60)))
+			.build();
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build();
+		SignedJWT signedJwt = new SignedJWT(header, claims);
+		signedJwt.sign(new RSASSASigner(signingKey));
+		JWEObject jwe = new JWEObject(
+				new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM).contentType("JWT").build(),
+				new Payload(signedJwt));
+		jwe.encrypt(new RSAEncrypter(encryptionKey()));
+		return jwe.serialize();
+	}
+
+	private static RSAPublicKey encryptionKey() throws IOException, GeneralSecurityException {
+		try (InputStream in = new ClassPathResource("simple.pub").getInputStream()) {
+			String pem = new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+			byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+			return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(der));
+		}
+	}
+
+	private MockWebServer mockWebServer() {
+		return (MockWebServer) this.environment.getPropertySources()
+			.get(MockWebServerPropertySource.MOCK_WEB_SERVER_PROPERTY_SOURCE_NAME)
+			.getSource();
+	}
+
 	private static BearerTokenRequestPostProcessor bearerToken(String token) {
 		return new BearerTokenRequestPostProcessor(token);
 	}
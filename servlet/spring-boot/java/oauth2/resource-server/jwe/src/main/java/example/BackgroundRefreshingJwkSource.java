@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A {@link JWKSource} that keeps a copy of a remote JWK Set, which it refreshes in the
+ * background, so that request threads never wait for the JWK Set endpoint.
+ *
+ * <p>
+ * The JWK Set is loaded once when the source is created, and then refreshed every
+ * refresh interval. Until a refresh completes, the previous keys keep being served, and
+ * when a refresh fails they are kept until the next one. A token signed with a key that
+ * is not in the JWK Set, as happens when the authorization server rotates its keys,
+ * starts a refresh as well, but at most once per minimum refresh interval. Whatever
+ * starts it, only one refresh runs at a time.
+ */
+final class BackgroundRefreshingJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(BackgroundRefreshingJwkSource.class);
+
+	private final URL jwkSetUrl;
+
+	private final Duration minimumRefreshInterval;
+
+	private final ResourceRetriever resourceRetriever = new DefaultResourceRetriever(5000, 5000, 51200);
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+		Thread thread = new Thread(runnable, "jwk-set-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>(new JWKSet());
+
+	private final AtomicReference<CompletableFuture<JWKSet>> refresh = new AtomicReference<>();
+
+	private volatile long lastRefreshStarted;
+
+	BackgroundRefreshingJwkSource(URL jwkSetUrl, Duration refreshInterval, Duration minimumRefreshInterval) {
+		this.jwkSetUrl = jwkSetUrl;
+		this.minimumRefreshInterval = minimumRefreshInterval;
+		try {
+			refresh().join();
+		}
+		catch (CompletionException ex) {
+			// already logged, the scheduled refreshes retry
+		}
+		long period = refreshInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+		List<JWK> jwks = jwkSelector.select(this.jwkSet.get());
+		if (jwks.isEmpty() && System.nanoTime() - this.lastRefreshStarted >= this.minimumRefreshInterval.toNanos()) {
+			refresh();
+		}
+		return jwks;
+	}
+
+	/**
+	 * Refreshes the JWK Set in the background, unless a refresh is already running.
+	 * @return the running refresh
+	 */
+	CompletableFuture<JWKSet> refresh() {
+		CompletableFuture<JWKSet> refresh = new CompletableFuture<>();
+		CompletableFuture<JWKSet> running = this.refresh.compareAndExchange(null, refresh);
+		if (running != null) {
+			return running;
+		}
+		this.lastRefreshStarted = System.nanoTime();
+		this.scheduler.execute(() -> {
+			try {
+				JWKSet jwkSet = JWKSet.parse(this.resourceRetriever.retrieveResource(this.jwkSetUrl).getContent());
+				this.jwkSet.set(jwkSet);
+				this.refresh.set(null);
+				refresh.complete(jwkSet);
+			}
+			catch (Exception ex) {
+				logger.warn("Failed to refresh the JWK Set from " + this.jwkSetUrl, ex);
+				this.refresh.set(null);
+				refresh.completeExceptionally(ex);
+			}
+		});
+		return refresh;
+	}
+
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.BadJWTException;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+/**
+ * A {@link JWTProcessor} for signed JWTs nested in JWEs that are encrypted with a single,
+ * static RSA key.
+ *
+ * <p>
+ * The {@link RSADecrypter} for that key is built once and reused for every token, rather
+ * than selecting the key and building a decrypter per token. Once decrypted, the nested
+ * JWT is handed to another {@link JWTProcessor}, which verifies its signature and its
+ * claims.
+ *
+ * <p>
+ * Optionally, the decrypted nested JWT is remembered by the SHA-256 hash of the
+ * encrypted token, until the nested JWT's {@code exp} and for no longer than the given
+ * time to live, so that a token presented again is not decrypted again. Its signature and
+ * claims are still verified on every use.
+ */
+final class DecryptingJwtProcessor implements JWTProcessor<SecurityContext> {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private final JWTProcessor<SecurityContext> signedJwtProcessor;
+
+	private final JWEAlgorithm jweAlgorithm;
+
+	private final EncryptionMethod encryptionMethod;
+
+	private final RSADecrypter decrypter;
+
+	private final Duration timeToLive;
+
+	private final Cache<String, Decrypted> decrypted;
+
+	/**
+	 * Creates a processor for JWEs encrypted with the given key.
+	 * @param signedJwtProcessor verifies the nested, signed JWT
+	 * @param jweAlgorithm the expected key management algorithm
+	 * @param encryptionMethod the expected content encryption method
+	 * @param key the private key to decrypt with
+	 * @param timeToLive how long to remember each decrypted JWT, or {@link Duration#ZERO}
+	 * to decrypt every token
+	 */
+	DecryptingJwtProcessor(JWTProcessor<SecurityContext> signedJwtProcessor, JWEAlgorithm jweAlgorithm,
+			EncryptionMethod encryptionMethod, RSAPrivateKey key, Duration timeToLive) {
+		this.signedJwtProcessor = signedJwtProcessor;
+		this.jweAlgorithm = jweAlgorithm;
+		this.encryptionMethod = encryptionMethod;
+		this.decrypter = new RSADecrypter(key);
+		this.timeToLive = timeToLive;
+		this.decrypted = timeToLive.isZero() ? null
+				: Caffeine.newBuilder()
+					.maximumSize(MAXIMUM_SIZE)
+					.expireAfter(Expiry.creating(this::expiresAfter))
+					.build();
+	}
+
+	@Override
+	public JWTClaimsSet process(String token, SecurityContext context) throws BadJOSEException, JOSEException {
+		try {
+			return process(JWTParser.parse(token), context);
+		}
+		catch (ParseException ex) {
+			throw new BadJWTException("Invalid JWT serialization: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	public JWTClaimsSet process(JWT jwt, SecurityContext context) throws BadJOSEException, JOSEException {
+		if (jwt instanceof EncryptedJWT encryptedJwt) {
+			return process(encryptedJwt, context);
+		}
+		if (jwt instanceof SignedJWT signedJwt) {
+			return process(signedJwt, context);
+		}
+		return process((PlainJWT) jwt, context);
+	}
+
+	@Override
+	public JWTClaimsSet process(PlainJWT plainJwt, SecurityContext context) throws BadJOSEException, JOSEException {
+		return this.signedJwtProcessor.process(plainJwt, context);
+	}
+
+	@Override
+	public JWTClaimsSet process(SignedJWT signedJwt, SecurityContext context) throws BadJOSEException, JOSEException {
+		return this.signedJwtProcessor.process(signedJwt, context);
+	}
+
+	@Override
+	public JWTClaimsSet process(EncryptedJWT encryptedJwt, SecurityContext context)
+			throws BadJOSEException, JOSEException {
+		JWEHeader header = encryptedJwt.getHeader();
+		if (!this.jweAlgorithm.equals(header.getAlgorithm())
+				|| !this.encryptionMethod.equals(header.getEncryptionMethod())) {
+			throw new BadJOSEException("Encrypted JWT rejected: Unexpected JWE algorithm or encryption method");
+		}
+		try {
+			return process(SignedJWT.parse(decrypt(encryptedJwt).payload()), context);
+		}
+		catch (ParseException ex) {
+			throw new BadJWTException("The nested JWT is not a valid signed JWT", ex);
+		}
+	}
+
+	private Decrypted decrypt(EncryptedJWT encryptedJwt) throws BadJOSEException, JOSEException {
+		if (this.decrypted == null) {
+			return decryptNow(encryptedJwt);
+		}
+		String key = hash(encryptedJwt.getParsedString());
+		Decrypted decrypted = this.decrypted.getIfPresent(key);
+		if (decrypted == null) {
+			decrypted = decryptNow(encryptedJwt);
+			this.decrypted.put(key, decrypted);
+		}
+		return decrypted;
+	}
+
+	private Decrypted decryptNow(EncryptedJWT encryptedJwt) throws BadJOSEException, JOSEException {
+		encryptedJwt.decrypt(this.decrypter);
+		SignedJWT signedJwt = encryptedJwt.getPayload().toSignedJWT();
+		if (signedJwt == null) {
+			throw new BadJWTException("The payload of the encrypted JWT is not a nested signed JWT");
+		}
+		try {
+			Date expiresAt = signedJwt.getJWTClaimsSet().getExpirationTime();
+			return new Decrypted(signedJwt.serialize(), (expiresAt != null) ? expiresAt.toInstant() : null);
+		}
+		catch (ParseException ex) {
+			throw new BadJWTException("The nested JWT has an invalid claims set", ex);
+		}
+	}
+
+	private Duration expiresAfter(String key, Decrypted decrypted) {
+		if (decrypted.expiresAt() == null) {
+			return this.timeToLive;
+		}
+		Duration remaining = Duration.between(Instant.now(), decrypted.expiresAt());
+		if (remaining.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (remaining.compareTo(this.timeToLive) < 0) ? remaining : this.timeToLive;
+	}
+
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * A decrypted, not yet verified, nested JWT.
+	 */
+	private record Decrypted(String payload, Instant expiresAt) {
+
+	}
+
+}
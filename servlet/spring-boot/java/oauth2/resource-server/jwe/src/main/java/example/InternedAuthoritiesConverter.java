@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+
+/**
+ * Converts the scopes of a {@link Jwt} into {@code SCOPE_}-prefixed authorities, as
+ * {@link org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter}
+ * does, but hands out the same {@link GrantedAuthority} instance for each of the scopes
+ * it knows about, instead of allocating new ones for every token.
+ *
+ * <p>
+ * {@link #hasScope(String)} then authorizes a request by comparing the user's
+ * authorities to that instance by identity. Authorities that were created elsewhere,
+ * like in tests, are still compared by name.
+ */
+final class InternedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+	private static final String AUTHORITY_PREFIX = "SCOPE_";
+
+	private static final List<String> SCOPE_CLAIM_NAMES = List.of("scope", "scp");
+
+	private final Map<String, GrantedAuthority> authorities;
+
+	/**
+	 * Creates a converter with a canonical authority for each of the given scopes.
+	 * @param scopes the scopes the application authorizes with
+	 */
+	InternedAuthoritiesConverter(String... scopes) {
+		Map<String, GrantedAuthority> authorities = new HashMap<>();
+		for (String scope : scopes) {
+			authorities.put(scope, new SimpleGrantedAuthority(AUTHORITY_PREFIX + scope));
+		}
+		this.authorities = Map.copyOf(authorities);
+	}
+
+	@Override
+	public Collection<GrantedAuthority> convert(Jwt jwt) {
+		List<GrantedAuthority> granted = new ArrayList<>();
+		for (String claimName : SCOPE_CLAIM_NAMES) {
+			Object scopes = jwt.getClaims().get(claimName);
+			if (scopes == null) {
+				continue;
+			}
+			if (scopes instanceof String scopeString) {
+				addAuthorities(scopeString, granted);
+			}
+			else if (scopes instanceof Collection<?> scopeCollection) {
+				for (Object scope : scopeCollection) {
+					granted.add(authority(scope.toString()));
+				}
+			}
+			// like JwtGrantedAuthoritiesConverter, a scope claim of any other type grants
+			// nothing, rather than falling back to the next claim
+			return granted;
+		}
+		return granted;
+	}
+
+	private void addAuthorities(String scopes, List<GrantedAuthority> granted) {
+		int start = 0;
+		while (start < scopes.length()) {
+			int end = scopes.indexOf(' ', start);
+			if (end == -1) {
+				end = scopes.length();
+			}
+			if (end > start) {
+				granted.add(authority(scopes.substring(start, end)));
+			}
+			start = end + 1;
+		}
+	}
+
+	private GrantedAuthority authority(String scope) {
+		GrantedAuthority authority = this.authorities.get(scope);
+		return (authority != null) ? authority : new SimpleGrantedAuthority(AUTHORITY_PREFIX + scope);
+	}
+
+	/**
+	 * Creates an {@link AuthorizationManager} that grants access to users holding the
+	 * given scope.
+	 * @param scope one of the scopes this converter was created with
+	 * @param <T> the type of object being authorized
+	 * @return the {@link AuthorizationManager}
+	 */
+	<T> AuthorizationManager<T> hasScope(String scope) {
+		GrantedAuthority authority = this.authorities.get(scope);
+		Assert.notNull(authority, () -> "Unknown scope " + scope);
+		return (authentication, object) -> new AuthorizationDecision(hasAuthority(authentication.get(), authority));
+	}
+
+	private static boolean hasAuthority(Authentication authentication, GrantedAuthority authority) {
+		if (authentication == null) {
+			return false;
+		}
+		for (GrantedAuthority candidate : authentication.getAuthorities()) {
+			if (candidate == authority) {
+				return true;
+			}
+		}
+		for (GrantedAuthority candidate : authentication.getAuthorities()) {
+			if (authority.getAuthority().equals(candidate.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -17,24 +17,16 @@
 package example;
 
 import java.net.URL;
-import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.interfaces.RSAPrivateKey;
+import java.time.Duration;
 
 import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JWEAlgorithm;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.jwk.source.RemoteJWKSet;
-import com.nimbusds.jose.proc.JWEDecryptionKeySelector;
-import com.nimbusds.jose.proc.JWEKeySelector;
 import com.nimbusds.jose.proc.JWSKeySelector;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
-import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import com.nimbusds.jwt.proc.JWTProcessor;
@@ -46,10 +38,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
-import static org.springframework.security.config.Customizer.withDefaults;
-
 /**
  * OAuth Resource Server Configuration.
  *
@@ -65,51 +56,63 @@ public class OAuth2ResourceServerSecurityConfiguration {
 
 	private final EncryptionMethod encryptionMethod = EncryptionMethod.A256GCM;
 
+	private final InternedAuthoritiesConverter authorities = new InternedAuthoritiesConverter("message:read");
+
 	@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
 	URL jwkSetUri;
 
 	@Value("${sample.jwe-key-value}")
 	RSAPrivateKey key;
 
+	@Value("${sample.jwk-set.refresh-interval:4m}")
+	Duration refreshInterval;
+
+	@Value("${sample.jwk-set.minimum-refresh-interval:30s}")
+	Duration minimumRefreshInterval;
+
+	@Value("${sample.jwe.decryption-cache.time-to-live:5m}")
+	Duration decryptionCacheTimeToLive;
+
 	@Bean
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		// @formatter:off
 		http
 				.authorizeHttpRequests((authorize) -> authorize
-						.requestMatchers("/message/**").hasAuthority("SCOPE_message:read")
+						.requestMatchers("/message/**").access(this.authorities.hasScope("message:read"))
 						.anyRequest().authenticated()
 				)
-				.oauth2ResourceServer((oauth2) -> oauth2.jwt(withDefaults()));
+				.oauth2ResourceServer((oauth2) -> oauth2
+						.jwt((jwt) -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
+				);
 		// @formatter:on
 		return http.build();
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return new NimbusJwtDecoder(jwtProcessor());
+	JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwsJwkSource) {
+		return new NimbusJwtDecoder(jwtProcessor(jwsJwkSource));
 	}
 
-	private JWTProcessor<SecurityContext> jwtProcessor() {
-		JWKSource<SecurityContext> jwsJwkSource = new RemoteJWKSet<>(this.jwkSetUri);
+	@Bean
+	BackgroundRefreshingJwkSource jwsJwkSource() {
+		return new BackgroundRefreshingJwkSource(this.jwkSetUri, this.refreshInterval, this.minimumRefreshInterval);
+	}
+
+	private JWTProcessor<SecurityContext> jwtProcessor(JWKSource<SecurityContext> jwsJwkSource) {
 		JWSKeySelector<SecurityContext> jwsKeySelector = new JWSVerificationKeySelector<>(this.jwsAlgorithm,
 				jwsJwkSource);
 
-		JWKSource<SecurityContext> jweJwkSource = new ImmutableJWKSet<>(new JWKSet(rsaKey()));
-		JWEKeySelector<SecurityContext> jweKeySelector = new JWEDecryptionKeySelector<>(this.jweAlgorithm,
-				this.encryptionMethod, jweJwkSource);
-
 		ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
 		jwtProcessor.setJWSKeySelector(jwsKeySelector);
-		jwtProcessor.setJWEKeySelector(jweKeySelector);
 
-		return jwtProcessor;
+		return new DecryptingJwtProcessor(jwtProcessor, this.jweAlgorithm, this.encryptionMethod, this.key,
+				this.decryptionCacheTimeToLive);
 	}
 
-	private RSAKey rsaKey() {
-		RSAPrivateCrtKey crtKey = (RSAPrivateCrtKey) this.key;
-		Base64URL n = Base64URL.encode(crtKey.getModulus());
-		Base64URL e = Base64URL.encode(crtKey.getPublicExponent());
-		return new RSAKey.Builder(n, e).privateKey(this.key).keyUse(KeyUse.ENCRYPTION).build();
+	private JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(this.authorities);
+		return jwtAuthenticationConverter;
 	}
 
 }
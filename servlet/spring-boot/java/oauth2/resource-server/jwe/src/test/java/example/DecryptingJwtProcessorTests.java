@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link DecryptingJwtProcessor}.
+ */
+class DecryptingJwtProcessorTests {
+
+	private final AtomicInteger verifications = new AtomicInteger();
+
+	private KeyPair signingKeys;
+
+	private KeyPair encryptionKeys;
+
+	private DefaultJWTProcessor<SecurityContext> signedJwtProcessor;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		this.signingKeys = generator.generateKeyPair();
+		this.encryptionKeys = generator.generateKeyPair();
+		RSAKey jwk = new RSAKey.Builder((RSAPublicKey) this.signingKeys.getPublic()).build();
+		this.signedJwtProcessor = new DefaultJWTProcessor<>() {
+			@Override
+			public JWTClaimsSet process(SignedJWT signedJwt, SecurityContext context)
+					throws BadJOSEException, JOSEException {
+				DecryptingJwtProcessorTests.this.verifications.incrementAndGet();
+				return super.process(signedJwt, context);
+			}
+		};
+		this.signedJwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(jwk))));
+	}
+
+	@Test
+	void processWhenSameTokenThenDecryptsOnceAndVerifiesEachTime() throws Exception {
+		DecryptingJwtProcessor processor = processor(Duration.ofMinutes(5));
+		String token = token(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM);
+
+		EncryptedJWT first = EncryptedJWT.parse(token);
+		assertThat(processor.process(first, null).getSubject()).isEqualTo("subject");
+		EncryptedJWT second = EncryptedJWT.parse(token);
+		assertThat(processor.process(second, null).getSubject()).isEqualTo("subject");
+
+		assertThat(first.getState()).isEqualTo(JWEObject.State.DECRYPTED);
+		assertThat(second.getState()).isEqualTo(JWEObject.State.ENCRYPTED);
+		assertThat(this.verifications).hasValue(2);
+	}
+
+	@Test
+	void processWhenRememberedTokenWithInvalidSignatureThenRejected() throws Exception {
+		DecryptingJwtProcessor processor = processor(Duration.ofMinutes(5));
+		String token = token(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM);
+		processor.process(token, null);
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		RSAKey otherJwk = new RSAKey.Builder((RSAPublicKey) generator.generateKeyPair().getPublic()).build();
+		this.signedJwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(otherJwk))));
+
+		assertThatExceptionOfType(BadJOSEException.class).isThrownBy(() -> processor.process(token, null));
+	}
+
+	@Test
+	void processWhenUnexpectedAlgorithmThenRejected() throws Exception {
+		DecryptingJwtProcessor processor = processor(Duration.ofMinutes(5));
+		String token = token(JWEAlgorithm.RSA_OAEP_384, EncryptionMethod.A256GCM);
+
+		assertThatExceptionOfType(BadJOSEException.class).isThrownBy(() -> processor.process(token, null))
+			.withMessageContaining("Unexpected JWE algorithm or encryption method");
+		assertThat(this.verifications).hasValue(0);
+	}
+
+	@Test
+	void processWhenUnexpectedEncryptionMethodThenRejected() throws Exception {
+		DecryptingJwtProcessor processor = processor(Duration.ofMinutes(5));
+		String token = token(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128GCM);
+
+		assertThatExceptionOfType(BadJOSEException.class).isThrownBy(() -> processor.process(token, null))
+			.withMessageContaining("Unexpected JWE algorithm or encryption method");
+		assertThat(this.verifications).hasValue(0);
+	}
+
+	@Test
+	void processWhenZeroTimeToLiveThenDecryptsEachTime() throws Exception {
+		DecryptingJwtProcessor processor = processor(Duration.ZERO);
+		String token = token(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM);
+
+		EncryptedJWT first = EncryptedJWT.parse(token);
+		processor.process(first, null);
+		EncryptedJWT second = EncryptedJWT.parse(token);
+		processor.process(second, null);
+
+		assertThat(first.getState()).isEqualTo(JWEObject.State.DECRYPTED);
+		assertThat(second.getState()).isEqualTo(JWEObject.State.DECRYPTED);
+		assertThat(this.verifications).hasValue(2);
+	}
+
+	private DecryptingJwtProcessor processor(Duration timeToLive) {
+		return new DecryptingJwtProcessor(this.signedJwtProcessor, JWEAlgorithm.RSA_OAEP_256,
+				EncryptionMethod.A256GCM, (RSAPrivateKey) this.encryptionKeys.getPrivate(), timeToLive);
+	}
+
+	private String token(JWEAlgorithm jweAlgorithm, EncryptionMethod encryptionMethod) throws JOSEException {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("subject")
+			.expirationTime(Date.from(Instant.now().plusSeconds(60)))
+			.build();
+		SignedJWT signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+		signedJwt.sign(new RSASSASigner(this.signingKeys.getPrivate()));
+		JWEObject jwe = new JWEObject(new JWEHeader.Builder(jweAlgorithm, encryptionMethod).contentType("JWT").build(),
+				new Payload(signedJwt));
+		jwe.encrypt(new RSAEncrypter((RSAPublicKey) this.encryptionKeys.getPublic()));
+		return jwe.serialize();
+	}
+
+}
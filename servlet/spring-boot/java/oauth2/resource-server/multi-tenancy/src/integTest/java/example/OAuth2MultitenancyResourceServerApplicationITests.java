@@ -19,10 +19,12 @@ package example;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
@@ -55,6 +57,15 @@ class OAuth2MultitenancyResourceServerApplicationITests {
 	@Autowired
 	MockMvc mvc;
 
+	@Autowired
+	TenantAuthenticationManagerResolver authenticationManagers;
+
+	@Autowired
+	OAuth2ResourceServerSecurityConfiguration configuration;
+
+	@Value("${tenantOne.jwk-set-uri}")
+	String jwkSetUri;
+
 	@Test
 	void tenantOnePerformWhenValidBearerTokenThenAllows() throws Exception {
 
@@ -143,6 +154,29 @@ class OAuth2MultitenancyResourceServerApplicationITests {
 		// @formatter:on
 	}
 
+	@Test
+	void registeredTenantPerformWhenValidBearerTokenThenAllows() throws Exception {
+		this.authenticationManagers.register("tenantThree",
+				() -> this.configuration.jwt(NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build()));
+		try {
+			// @formatter:off
+			this.mvc.perform(get("/tenantThree").with(bearerToken(this.tenantOneNoScopesToken)))
+					.andExpect(status().isOk())
+					.andExpect(content().string(containsString("Hello, subject for tenantThree!")));
+			// @formatter:on
+		}
+		finally {
+			this.authenticationManagers.remove("tenantThree");
+		}
+		// @formatter:off
+		assertThatIllegalArgumentException()
+				.isThrownBy(() ->
+						this.mvc.perform(get("/tenantThree")
+								.with(bearerToken(this.tenantOneNoScopesToken)))
+				);
+		// @formatter:on
+	}
+
 	private static BearerTokenRequestPostProcessor bearerToken(String token) {
 		return new BearerTokenRequestPostProcessor(token);
 	}
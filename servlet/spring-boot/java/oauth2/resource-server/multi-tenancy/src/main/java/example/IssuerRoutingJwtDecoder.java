@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+
+/**
+ * A {@link JwtDecoder} that verifies each token with the keys of the tenant named by the
+ * token's {@code iss} claim.
+ *
+ * <p>
+ * The token is parsed once: its {@code iss} claim is read from the parsed, not yet
+ * verified {@link JWT}, which is then handed to that tenant's {@link JWTProcessor}.
+ * Each tenant's {@link JWTProcessor}, along with its JWK source and key selector, is
+ * built the first time one of its tokens arrives and is reused afterwards. Tokens from
+ * issuers that are not registered are rejected before any verification happens, as are
+ * tokens not signed with the configured algorithm.
+ */
+final class IssuerRoutingJwtDecoder implements JwtDecoder {
+
+	private final Map<String, String> jwkSetUris;
+
+	private final JWSAlgorithm jwsAlgorithm;
+
+	private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+	private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter
+		.withDefaults(Collections.emptyMap());
+
+	/**
+	 * Creates a decoder for the given tenants.
+	 * @param jwkSetUris the JWK Set uri of each tenant, by the tenant's issuer
+	 * @param jwsAlgorithm the algorithm that every tenant signs its tokens with
+	 */
+	IssuerRoutingJwtDecoder(Map<String, String> jwkSetUris, JWSAlgorithm jwsAlgorithm) {
+		this.jwkSetUris = Map.copyOf(jwkSetUris);
+		this.jwsAlgorithm = jwsAlgorithm;
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		JWT parsedJwt = parse(token);
+		String issuer = issuer(parsedJwt);
+		if (issuer == null || !this.jwkSetUris.containsKey(issuer)) {
+			throw new BadJwtException("Untrusted issuer " + issuer);
+		}
+		Tenant tenant = this.tenants.computeIfAbsent(issuer, this::tenant);
+		JWTClaimsSet claims = process(tenant.processor(), parsedJwt);
+		// @formatter:off
+		Jwt jwt = Jwt.withTokenValue(token)
+				.headers((headers) -> headers.putAll(parsedJwt.getHeader().toJSONObject()))
+				.claims((attributes) -> attributes.putAll(this.claimSetConverter.convert(claims.getClaims())))
+				.build();
+		// @formatter:on
+		OAuth2TokenValidatorResult result = tenant.validator().validate(jwt);
+		if (result.hasErrors()) {
+			throw new JwtValidationException("Unable to validate Jwt", result.getErrors());
+		}
+		return jwt;
+	}
+
+	private Tenant tenant(String issuer) {
+		JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.create(url(this.jwkSetUris.get(issuer))).build();
+		ConfigurableJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(this.jwsAlgorithm, jwkSource));
+		// claims are validated by the tenant's validator instead
+		processor.setJWTClaimsSetVerifier((claims, context) -> {
+		});
+		return new Tenant(processor, JwtValidators.createDefaultWithIssuer(issuer));
+	}
+
+	private static JWT parse(String token) {
+		try {
+			return JWTParser.parse(token);
+		}
+		catch (ParseException ex) {
+			throw new BadJwtException("Malformed token", ex);
+		}
+	}
+
+	private static String issuer(JWT parsedJwt) {
+		try {
+			return parsedJwt.getJWTClaimsSet().getIssuer();
+		}
+		catch (ParseException ex) {
+			throw new BadJwtException("Malformed payload", ex);
+		}
+	}
+
+	private static JWTClaimsSet process(JWTProcessor<SecurityContext> processor, JWT parsedJwt) {
+		try {
+			return processor.process(parsedJwt, null);
+		}
+		catch (BadJOSEException ex) {
+			throw new BadJwtException("Failed to validate the token", ex);
+		}
+		catch (JOSEException ex) {
+			throw new JwtException("Failed to validate the token", ex);
+		}
+	}
+
+	private static URL url(String jwkSetUri) {
+		try {
+			return URI.create(jwkSetUri).toURL();
+		}
+		catch (MalformedURLException ex) {
+			throw new IllegalArgumentException("Invalid JWK Set uri " + jwkSetUri, ex);
+		}
+	}
+
+	private record Tenant(JWTProcessor<SecurityContext> processor, OAuth2TokenValidator<Jwt> validator) {
+
+	}
+
+}
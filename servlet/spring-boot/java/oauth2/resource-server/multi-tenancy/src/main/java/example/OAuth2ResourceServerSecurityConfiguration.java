@@ -16,23 +16,30 @@
 
 package example;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.Map;
-import java.util.Optional;
 
+import com.nimbusds.jose.JWSAlgorithm;
 import jakarta.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.oauth2.server.resource.authentication.JwtBearerTokenAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.OpaqueTokenAuthenticationProvider;
 import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.SpringOpaqueTokenIntrospector;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
@@ -61,20 +68,34 @@ public class OAuth2ResourceServerSecurityConfiguration {
 	}
 
 	@Bean
-	AuthenticationManagerResolver<HttpServletRequest> multitenantAuthenticationManager(JwtDecoder jwtDecoder,
-			OpaqueTokenIntrospector opaqueTokenIntrospector) {
-		Map<String, AuthenticationManager> authenticationManagers = new HashMap<>();
-		authenticationManagers.put("tenantOne", jwt(jwtDecoder));
-		authenticationManagers.put("tenantTwo", opaque(opaqueTokenIntrospector));
-		return (request) -> {
-			String[] pathParts = request.getRequestURI().split("/");
-			String tenantId = (pathParts.length > 0) ? pathParts[1] : null;
-			// @formatter:off
-			return Optional.ofNullable(tenantId)
-					.map(authenticationManagers::get)
-					.orElseThrow(() -> new IllegalArgumentException("unknown tenant"));
-			// @formatter:on
-		};
+	@ConditionalOnProperty(name = "tenants.routing", havingValue = "path", matchIfMissing = true)
+	TenantAuthenticationManagerResolver multitenantAuthenticationManager(
+			@Value("${tenantOne.jwk-set-uri}") String jwkSetUri,
+			@Value("${tenantTwo.introspection-uri}") String introspectionUri,
+			@Value("${tenantTwo.introspection-client-id}") String clientId,
+			@Value("${tenantTwo.introspection-client-secret}") String clientSecret,
+			@Value("${tenants.idle-timeout:30m}") Duration idleTimeout) {
+		TenantAuthenticationManagerResolver authenticationManagers = new TenantAuthenticationManagerResolver(
+				idleTimeout);
+		authenticationManagers.register("tenantOne", () -> jwt(NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build()));
+		authenticationManagers.register("tenantTwo", () -> opaque(SpringOpaqueTokenIntrospector
+			.withIntrospectionUri(introspectionUri)
+			.clientId(clientId)
+			.clientSecret(clientSecret)
+			.build()));
+		return authenticationManagers;
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "tenants.routing", havingValue = "issuer")
+	AuthenticationManagerResolver<HttpServletRequest> issuerAuthenticationManager(Environment environment,
+			@Value("${tenants.jws-algorithm:RS256}") String jwsAlgorithm) {
+		Map<String, String> jwkSetUris = Binder.get(environment)
+			.bind("tenants.issuers", Bindable.mapOf(String.class, String.class))
+			.orElse(Map.of());
+		AuthenticationManager authenticationManager = jwt(
+				new IssuerRoutingJwtDecoder(jwkSetUris, JWSAlgorithm.parse(jwsAlgorithm)));
+		return (request) -> authenticationManager;
 	}
 
 	AuthenticationManager jwt(JwtDecoder jwtDecoder) {
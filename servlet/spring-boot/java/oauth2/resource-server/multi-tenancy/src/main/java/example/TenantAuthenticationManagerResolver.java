@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+
+/**
+ * An {@link AuthenticationManagerResolver} that picks the tenant named by the first
+ * segment of the request's path, as in {@code /tenantOne/message}.
+ *
+ * <p>
+ * Tenants are registered with a factory for their {@link AuthenticationManager}, and may
+ * be registered and removed while the application is running. A tenant's
+ * {@link AuthenticationManager} is only built the first time a request for that tenant
+ * arrives, and is dropped again once the tenant has been idle for the configured
+ * duration, to be rebuilt on its next request.
+ */
+final class TenantAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+
+	private final Map<String, Supplier<AuthenticationManager>> tenants = new ConcurrentHashMap<>();
+
+	private final Cache<String, AuthenticationManager> authenticationManagers;
+
+	TenantAuthenticationManagerResolver(Duration idleTimeout) {
+		this.authenticationManagers = Caffeine.newBuilder().expireAfterAccess(idleTimeout).build();
+	}
+
+	/**
+	 * Registers a tenant, replacing any tenant already registered under the same id.
+	 * @param tenantId the tenant's id, as it appears in the request's path
+	 * @param authenticationManager builds the tenant's {@link AuthenticationManager}
+	 */
+	void register(String tenantId, Supplier<AuthenticationManager> authenticationManager) {
+		this.tenants.put(tenantId, authenticationManager);
+		this.authenticationManagers.invalidate(tenantId);
+	}
+
+	/**
+	 * Removes a tenant, so that its requests are no longer authenticated.
+	 * @param tenantId the tenant's id
+	 */
+	void remove(String tenantId) {
+		this.tenants.remove(tenantId);
+		this.authenticationManagers.invalidate(tenantId);
+	}
+
+	@Override
+	public AuthenticationManager resolve(HttpServletRequest request) {
+		String tenantId = tenantId(request.getRequestURI());
+		Supplier<AuthenticationManager> tenant = this.tenants.get(tenantId);
+		if (tenant == null) {
+			throw new IllegalArgumentException("unknown tenant");
+		}
+		AuthenticationManager authenticationManager = this.authenticationManagers.get(tenantId,
+				(key) -> tenant.get());
+		if (this.tenants.get(tenantId) != tenant) {
+			// the tenant was replaced or removed while its manager was being built
+			this.authenticationManagers.asMap().remove(tenantId, authenticationManager);
+			return resolve(request);
+		}
+		return authenticationManager;
+	}
+
+	private static String tenantId(String requestUri) {
+		int start = requestUri.startsWith("/") ? 1 : 0;
+		int end = requestUri.indexOf('/', start);
+		return requestUri.substring(start, (end != -1) ? end : requestUri.length());
+	}
+
+}
@@ -16,17 +16,29 @@
 
 package example;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.MockWebServerPropertySource;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.RequestPostProcessor;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -50,6 +62,9 @@ class OAuth2OpaqueTokenResourceServerApplicationITests {
 	@Autowired
 	MockMvc mvc;
 
+	@Autowired
+	ConfigurableEnvironment environment;
+
 	@Test
 	void performWhenValidBearerTokenThenAllows() throws Exception {
 
@@ -83,6 +98,57 @@ class OAuth2OpaqueTokenResourceServerApplicationITests {
 		// @formatter:on
 	}
 
+	// -- tests with introspection caching
+
+	@Test
+	void performWhenSameBearerTokenThenIntrospectsAtMostOnce() throws Exception {
+		int before = introspectionCount();
+		for (int i = 0; i < 3; i++) {
+			this.mvc.perform(get("/").with(bearerToken(this.noScopesToken))).andExpect(status().isOk());
+		}
+		assertThat(introspectionCount() - before).isLessThanOrEqualTo(1);
+	}
+
+	@Test
+	void performWhenSameInactiveBearerTokenThenIntrospectsOnce() throws Exception {
+		String inactiveToken = UUID.randomUUID().toString();
+		int before = introspectionCount();
+		for (int i = 0; i < 3; i++) {
+			this.mvc.perform(get("/").with(bearerToken(inactiveToken))).andExpect(status().isUnauthorized());
+		}
+		assertThat(introspectionCount() - before).isEqualTo(1);
+	}
+
+	@Test
+	void performWhenConcurrentBearerTokenThenIntrospectsOnce() throws Exception {
+		String inactiveToken = UUID.randomUUID().toString();
+		int before = introspectionCount();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Callable<Integer>> requests = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				requests.add(() -> this.mvc.perform(get("/").with(bearerToken(inactiveToken)))
+					.andReturn()
+					.getResponse()
+					.getStatus());
+			}
+			for (Future<Integer> status : executor.invokeAll(requests)) {
+				assertThat(status.get()).isEqualTo(401);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertThat(introspectionCount() - before).isEqualTo(1);
+	}
+
+	private int introspectionCount() {
+		MockWebServer server = (MockWebServer) this.environment.getPropertySources()
+			.get(MockWebServerPropertySource.MOCK_WEB_SERVER_PROPERTY_SOURCE_NAME)
+			.getSource();
+		return server.getRequestCount();
+	}
+
 	private static BearerTokenRequestPostProcessor bearerToken(String token) {
 		return new BearerTokenRequestPostProcessor(token);
 	}
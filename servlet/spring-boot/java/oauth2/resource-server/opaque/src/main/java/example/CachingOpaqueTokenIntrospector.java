@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+/**
+ * An {@link OpaqueTokenIntrospector} that remembers the outcome of introspecting each
+ * token, so that a token presented again is not sent to the authorization server.
+ *
+ * <p>
+ * An active token is remembered until its {@code exp}, but for no longer than the
+ * configured time to live, so that a revocation is noticed eventually. An inactive
+ * token is remembered briefly. Errors talking to the authorization server are not
+ * remembered. Requests introspecting the same token at the same time share a single
+ * call to the authorization server.
+ */
+final class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private final OpaqueTokenIntrospector delegate;
+
+	private final Duration timeToLive;
+
+	private final Duration inactiveTimeToLive;
+
+	private final Cache<String, Introspection> introspections;
+
+	private final Map<String, CompletableFuture<Introspection>> inFlight = new ConcurrentHashMap<>();
+
+	CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, Duration timeToLive,
+			Duration inactiveTimeToLive) {
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.inactiveTimeToLive = inactiveTimeToLive;
+		this.introspections = Caffeine.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfter(Expiry.creating(this::expiresAfter))
+			.build();
+	}
+
+	@Override
+	public OAuth2AuthenticatedPrincipal introspect(String token) {
+		Introspection introspection = this.introspections.getIfPresent(token);
+		if (introspection == null) {
+			introspection = introspectOnce(token);
+		}
+		if (introspection.principal() == null) {
+			throw new BadOpaqueTokenException("Provided token isn't active");
+		}
+		return introspection.principal();
+	}
+
+	private Introspection introspectOnce(String token) {
+		CompletableFuture<Introspection> call = new CompletableFuture<>();
+		CompletableFuture<Introspection> pending = this.inFlight.putIfAbsent(token, call);
+		if (pending != null) {
+			return join(pending);
+		}
+		try {
+			Introspection introspection = this.introspections.getIfPresent(token);
+			if (introspection == null) {
+				introspection = introspectRemotely(token);
+				this.introspections.put(token, introspection);
+			}
+			call.complete(introspection);
+			return introspection;
+		}
+		catch (RuntimeException ex) {
+			call.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(token, call);
+		}
+	}
+
+	private Introspection introspectRemotely(String token) {
+		try {
+			return new Introspection(this.delegate.introspect(token));
+		}
+		catch (BadOpaqueTokenException ex) {
+			return new Introspection(null);
+		}
+	}
+
+	private static Introspection join(CompletableFuture<Introspection> pending) {
+		try {
+			return pending.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	private Duration expiresAfter(String token, Introspection introspection) {
+		if (introspection.principal() == null) {
+			return this.inactiveTimeToLive;
+		}
+		Object expiresAt = introspection.principal().getAttribute(OAuth2TokenIntrospectionClaimNames.EXP);
+		if (expiresAt instanceof Instant exp) {
+			Duration remaining = Duration.between(Instant.now(), exp);
+			if (remaining.isNegative()) {
+				return Duration.ZERO;
+			}
+			return (remaining.compareTo(this.timeToLive) < 0) ? remaining : this.timeToLive;
+		}
+		return this.timeToLive;
+	}
+
+	/**
+	 * The outcome of introspecting a token, where a {@code null} principal means that the
+	 * token is not active.
+	 */
+	private record Introspection(OAuth2AuthenticatedPrincipal principal) {
+
+	}
+
+}
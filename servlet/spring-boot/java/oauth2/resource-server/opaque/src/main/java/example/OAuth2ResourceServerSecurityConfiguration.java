@@ -16,12 +16,16 @@
 
 package example;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.SpringOpaqueTokenIntrospector;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
@@ -42,8 +46,15 @@ public class OAuth2ResourceServerSecurityConfiguration {
 	@Value("${spring.security.oauth2.resourceserver.opaque.introspection-client-secret}")
 	String clientSecret;
 
+	@Value("${introspection.cache.time-to-live:5m}")
+	Duration timeToLive;
+
+	@Value("${introspection.cache.inactive-time-to-live:10s}")
+	Duration inactiveTimeToLive;
+
 	@Bean
-	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain securityFilterChain(HttpSecurity http, OpaqueTokenIntrospector introspector)
+			throws Exception {
 		// @formatter:off
 		http
 				.authorizeHttpRequests((authorize) -> authorize
@@ -53,12 +64,22 @@ public class OAuth2ResourceServerSecurityConfiguration {
 				)
 				.oauth2ResourceServer((oauth2) -> oauth2
 						.opaqueToken((opaque) -> opaque
-								.introspectionUri(this.introspectionUri)
-								.introspectionClientCredentials(this.clientId, this.clientSecret)
+								.introspector(introspector)
 						)
 				);
 		// @formatter:on
 		return http.build();
 	}
 
+	@Bean
+	OpaqueTokenIntrospector introspector() {
+		// @formatter:off
+		OpaqueTokenIntrospector introspector = SpringOpaqueTokenIntrospector.withIntrospectionUri(this.introspectionUri)
+				.clientId(this.clientId)
+				.clientSecret(this.clientSecret)
+				.build();
+		// @formatter:on
+		return new CachingOpaqueTokenIntrospector(introspector, this.timeToLive, this.inactiveTimeToLive);
+	}
+
 }
@@ -67,7 +67,7 @@ public class MockWebServerPropertySource extends PropertySource<MockWebServer> i
 	// @formatter:off
 	private static final MockResponse INACTIVE_RESPONSE = response(
 			"{\n" +
-					"      \"active\": false,\n" +
+					"      \"active\": false\n" +
 					"     }",
 			200
 	);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+/**
+ * A {@link JwtDecoder} that remembers each successfully decoded {@link Jwt}, so that a
+ * token presented again is neither verified nor parsed again.
+ *
+ * <p>
+ * Tokens are remembered by their SHA-256 hash until they expire, or for at most the
+ * configured time to live, and only so many of them are remembered at once. Tokens
+ * that fail to decode are not remembered. The cache's hits and misses are published as
+ * the {@code cache.*} metrics of the {@code jwts} cache.
+ *
+ * <p>
+ * Checks that can change their mind about a token after it was decoded, like whether it
+ * has been revoked, go in {@link #setJwtValidator(OAuth2TokenValidator)}, which is
+ * applied to remembered tokens as well.
+ */
+final class CachingJwtDecoder implements JwtDecoder, MeterBinder {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private final JwtDecoder delegate;
+
+	private final Duration timeToLive;
+
+	private final Cache<String, Jwt> jwts;
+
+	private OAuth2TokenValidator<Jwt> jwtValidator = (jwt) -> OAuth2TokenValidatorResult.success();
+
+	CachingJwtDecoder(JwtDecoder delegate, Duration timeToLive) {
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.jwts = Caffeine.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfter(Expiry.creating(this::expiresAfter))
+			.recordStats()
+			.build();
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		String key = hash(token);
+		Jwt jwt = this.jwts.getIfPresent(key);
+		if (jwt == null) {
+			jwt = this.delegate.decode(token);
+			this.jwts.put(key, jwt);
+		}
+		OAuth2TokenValidatorResult result = this.jwtValidator.validate(jwt);
+		if (result.hasErrors()) {
+			throw new JwtValidationException("Unable to validate Jwt", result.getErrors());
+		}
+		return jwt;
+	}
+
+	/**
+	 * Use this {@link OAuth2TokenValidator} on every decoded {@link Jwt}, whether or not
+	 * it was remembered.
+	 * @param jwtValidator the validator to use
+	 */
+	void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+		this.jwtValidator = jwtValidator;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.jwts, "jwts");
+	}
+
+	private Duration expiresAfter(String key, Jwt jwt) {
+		Instant expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return this.timeToLive;
+		}
+		Duration remaining = Duration.between(Instant.now(), expiresAt);
+		if (remaining.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (remaining.compareTo(this.timeToLive) < 0) ? remaining : this.timeToLive;
+	}
+
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(digest);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -16,7 +16,9 @@
 
 package example;
 
+import java.nio.file.Path;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +26,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 /**
@@ -34,27 +37,55 @@ import org.springframework.security.web.SecurityFilterChain;
 @Configuration
 public class OAuth2ResourceServerSecurityConfiguration {
 
+	private final InternedAuthoritiesConverter authorities = new InternedAuthoritiesConverter("message:read");
+
 	@Value("${spring.security.oauth2.resourceserver.jwt.key-value}")
 	RSAPublicKey key;
 
+	@Value("${jwt.cache.time-to-live:5m}")
+	Duration timeToLive;
+
+	@Value("${jwt.revocation.file:revoked-tokens.txt}")
+	Path revocationFile;
+
+	@Value("${jwt.revocation.poll-interval:10s}")
+	Duration revocationPollInterval;
+
 	@Bean
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		// @formatter:off
 		http
 				.authorizeHttpRequests((authorize) -> authorize
-						.requestMatchers("/message/**").hasAuthority("SCOPE_message:read")
+						.requestMatchers("/message/**").access(this.authorities.hasScope("message:read"))
 						.anyRequest().authenticated()
 				)
 				.oauth2ResourceServer((oauth2) -> oauth2
-						.jwt((jwt) -> jwt.decoder(jwtDecoder()))
+						.jwt((jwt) -> jwt
+								.decoder(jwtDecoder(revocationList()))
+								.jwtAuthenticationConverter(jwtAuthenticationConverter())
+						)
 				);
 		// @formatter:on
 		return http.build();
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return NimbusJwtDecoder.withPublicKey(this.key).build();
+	CachingJwtDecoder jwtDecoder(JwtRevocationList revocationList) {
+		JwtDecoder jwtDecoder = NimbusJwtDecoder.withPublicKey(this.key).build();
+		CachingJwtDecoder cachingJwtDecoder = new CachingJwtDecoder(jwtDecoder, this.timeToLive);
+		cachingJwtDecoder.setJwtValidator(revocationList);
+		return cachingJwtDecoder;
+	}
+
+	@Bean
+	JwtRevocationList revocationList() {
+		return new JwtRevocationList(this.revocationFile, this.revocationPollInterval);
+	}
+
+	private JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(this.authorities);
+		return jwtAuthenticationConverter;
 	}
 
 }
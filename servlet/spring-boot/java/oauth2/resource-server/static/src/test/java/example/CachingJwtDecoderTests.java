@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CachingJwtDecoder}.
+ */
+class CachingJwtDecoderTests {
+
+	private final AtomicInteger decodes = new AtomicInteger();
+
+	@Test
+	void decodeWhenSameTokenThenDecodesOnce() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(delegate(Instant.now().plusSeconds(60)),
+				Duration.ofMinutes(5));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		jwtDecoder.bindTo(registry);
+
+		Jwt first = jwtDecoder.decode("token");
+		Jwt second = jwtDecoder.decode("token");
+
+		assertThat(second).isSameAs(first);
+		assertThat(this.decodes).hasValue(1);
+		assertThat(registry.get("cache.gets").tag("cache", "jwts").tag("result", "hit").functionCounter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void decodeWhenDifferentTokensThenDecodesEach() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(delegate(Instant.now().plusSeconds(60)),
+				Duration.ofMinutes(5));
+
+		jwtDecoder.decode("one");
+		jwtDecoder.decode("two");
+
+		assertThat(this.decodes).hasValue(2);
+	}
+
+	@Test
+	void decodeWhenInvalidTokenThenNotRemembered() {
+		JwtDecoder delegate = (token) -> {
+			this.decodes.incrementAndGet();
+			throw new BadJwtException("invalid");
+		};
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(delegate, Duration.ofMinutes(5));
+
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> jwtDecoder.decode("token"));
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> jwtDecoder.decode("token"));
+		assertThat(this.decodes).hasValue(2);
+	}
+
+	@Test
+	void decodeWhenTokenExpiresBeforeTimeToLiveThenForgottenAtExpiry() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(delegate(Instant.now().minusSeconds(1)),
+				Duration.ofMinutes(5));
+
+		jwtDecoder.decode("token");
+		jwtDecoder.decode("token");
+
+		assertThat(this.decodes).hasValue(2);
+	}
+
+	@Test
+	void decodeWhenRememberedTokenThenStillValidated() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(delegate(Instant.now().plusSeconds(60)),
+				Duration.ofMinutes(5));
+		jwtDecoder.decode("token");
+		jwtDecoder.setJwtValidator((jwt) -> OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token")));
+
+		assertThatExceptionOfType(JwtValidationException.class).isThrownBy(() -> jwtDecoder.decode("token"));
+		assertThat(this.decodes).hasValue(1);
+	}
+
+	private JwtDecoder delegate(Instant expiresAt) {
+		return (token) -> {
+			this.decodes.incrementAndGet();
+			return Jwt.withTokenValue(token)
+				.header("alg", "RS256")
+				.subject("subject")
+				.issuedAt(expiresAt.minusSeconds(120))
+				.expiresAt(expiresAt)
+				.build();
+		};
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JwtRevocationList}.
+ */
+class JwtRevocationListTests {
+
+	private static final long NEVER = 9_999_999_999L;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void refreshWhenTrailingLineIncompleteThenReadOnceCompleted() throws IOException {
+		Path file = this.directory.resolve("revoked.txt");
+		Files.writeString(file, "one " + NEVER + "\ntwo 99999");
+		try (JwtRevocationList revocations = new JwtRevocationList(file, Duration.ofHours(1))) {
+			assertThat(revocations.isRevoked("one")).isTrue();
+			assertThat(revocations.isRevoked("two")).isFalse();
+
+			Files.writeString(file, "99999\n", StandardOpenOption.APPEND);
+			revocations.refresh();
+
+			assertThat(revocations.isRevoked("two")).isTrue();
+		}
+	}
+
+	@Test
+	void refreshWhenLinesAppendedThenReadsOnlyThose() throws IOException {
+		Path file = this.directory.resolve("revoked.txt");
+		Files.writeString(file, "# revoked tokens\none " + NEVER + "\n");
+		try (JwtRevocationList revocations = new JwtRevocationList(file, Duration.ofHours(1))) {
+			Files.writeString(file, "two " + NEVER + "\r\nmalformed\nthree soon\n", StandardOpenOption.APPEND);
+			revocations.refresh();
+
+			assertThat(revocations.isRevoked("one")).isTrue();
+			assertThat(revocations.isRevoked("two")).isTrue();
+			assertThat(revocations.isRevoked("malformed")).isFalse();
+			assertThat(revocations.isRevoked("three")).isFalse();
+		}
+	}
+
+	@Test
+	void refreshWhenFileShrinksThenReadsItAgain() throws IOException {
+		Path file = this.directory.resolve("revoked.txt");
+		Files.writeString(file, "one " + NEVER + "\ntwo " + NEVER + "\n");
+		try (JwtRevocationList revocations = new JwtRevocationList(file, Duration.ofHours(1))) {
+			Files.writeString(file, "three " + NEVER + "\n");
+			revocations.refresh();
+
+			assertThat(revocations.isRevoked("one")).isFalse();
+			assertThat(revocations.isRevoked("two")).isFalse();
+			assertThat(revocations.isRevoked("three")).isTrue();
+		}
+	}
+
+	@Test
+	void refreshWhenTokensExpiredThenForgetsOnlyThose() throws IOException {
+		Path file = this.directory.resolve("revoked.txt");
+		Instant now = Instant.parse("2025-01-01T00:00:00Z");
+		try (JwtRevocationList revocations = new JwtRevocationList(file, Duration.ofHours(1))) {
+			revocations.setClock(Clock.fixed(now, ZoneOffset.UTC));
+			Files.writeString(file, "soon " + now.plusSeconds(60).getEpochSecond() + "\nlater "
+					+ now.plusSeconds(3600).getEpochSecond() + "\n");
+			revocations.refresh();
+			assertThat(revocations.isRevoked("soon")).isTrue();
+
+			revocations.setClock(Clock.fixed(now.plusSeconds(120), ZoneOffset.UTC));
+			revocations.refresh();
+
+			assertThat(revocations.isRevoked("soon")).isFalse();
+			// the rebuilt filter still holds the ids that were kept
+			assertThat(revocations.isRevoked("later")).isTrue();
+		}
+	}
+
+}
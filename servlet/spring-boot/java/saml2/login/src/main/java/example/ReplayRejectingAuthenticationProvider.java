@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.StringReader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.saml2.core.Saml2Error;
+import org.springframework.security.saml2.core.Saml2ErrorCodes;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+
+/**
+ * An {@link AuthenticationProvider} that rejects SAML 2.0 responses that were already
+ * used to log in.
+ *
+ * <p>
+ * The IDs of the {@code <saml2p:Response>} and of its unencrypted
+ * {@code <saml2:Assertion>}s are read with a streaming parser, and a response with an ID
+ * seen before is rejected before it is handed to the delegate, which parses the
+ * response in full and verifies its signatures. Once the delegate accepts a response,
+ * its IDs are remembered until its latest {@code NotOnOrAfter} plus the clock skew, and
+ * for at least the replay window.
+ *
+ * <p>
+ * The ID of an {@code <saml2:EncryptedAssertion>} cannot be read before the delegate
+ * decrypts it, and the ID of an unsigned response can be changed at will, so a digest of
+ * each encrypted assertion's ciphertext is remembered in its place. This rejects a
+ * captured response sent again under a new response ID, but not an assertion that was
+ * decrypted and encrypted again, which takes the relying party's private key or the
+ * plain assertion. Since the {@code NotOnOrAfter} of an encrypted assertion cannot be
+ * read either, the replay window should cover how long such assertions are valid for.
+ *
+ * <p>
+ * IDs are never evicted before they expire, since that would let their responses be
+ * replayed. Instead, once the maximum number of IDs is remembered, every response is
+ * rejected until enough of them expire.
+ */
+final class ReplayRejectingAuthenticationProvider implements AuthenticationProvider {
+
+	private static final Log logger = LogFactory.getLog(ReplayRejectingAuthenticationProvider.class);
+
+	private static final String PROTOCOL_NS = "urn:oasis:names:tc:SAML:2.0:protocol";
+
+	private static final String ASSERTION_NS = "urn:oasis:names:tc:SAML:2.0:assertion";
+
+	private static final String ENCRYPTION_NS = "http://www.w3.org/2001/04/xmlenc#";
+
+	private final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+	private final AuthenticationProvider delegate;
+
+	private final Duration window;
+
+	private final Duration clockSkew;
+
+	private final long maximumSize;
+
+	private final Cache<String, Instant> ids;
+
+	/**
+	 * Creates a provider that remembers the IDs of accepted responses until they are no
+	 * longer valid.
+	 * @param delegate the provider that authenticates the response
+	 * @param window how long to remember each ID at least
+	 * @param clockSkew the clock skew the delegate allows when validating
+	 * {@code NotOnOrAfter}
+	 * @param maximumSize how many IDs to remember at most
+	 */
+	ReplayRejectingAuthenticationProvider(AuthenticationProvider delegate, Duration window, Duration clockSkew,
+			long maximumSize) {
+		this.delegate = delegate;
+		this.window = window;
+		this.clockSkew = clockSkew;
+		this.maximumSize = maximumSize;
+		this.ids = Caffeine.newBuilder().expireAfter(Expiry.creating(this::expiresAfter)).build();
+	}
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		Saml2AuthenticationToken token = (Saml2AuthenticationToken) authentication;
+		Response response = parse(token.getSaml2Response());
+		for (String id : response.ids()) {
+			if (this.ids.getIfPresent(id) != null) {
+				throw replayed(id);
+			}
+		}
+		if (isFull(response.ids().size())) {
+			logger.error("Rejecting SAML 2.0 responses since " + this.maximumSize
+					+ " IDs are already remembered; increase the maximum size or shorten the replay window");
+			throw new Saml2AuthenticationException(new Saml2Error(Saml2ErrorCodes.INTERNAL_VALIDATION_ERROR,
+					"Too many responses to check for replay"));
+		}
+		Authentication authenticated = this.delegate.authenticate(authentication);
+		Instant expiresAt = expiresAt(response.notOnOrAfter());
+		for (String id : response.ids()) {
+			if (this.ids.asMap().putIfAbsent(id, expiresAt) != null) {
+				throw replayed(id);
+			}
+		}
+		return authenticated;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return Saml2AuthenticationToken.class.isAssignableFrom(authentication);
+	}
+
+	private boolean isFull(int size) {
+		if (this.ids.estimatedSize() + size <= this.maximumSize) {
+			return false;
+		}
+		this.ids.cleanUp();
+		return this.ids.estimatedSize() + size > this.maximumSize;
+	}
+
+	private Instant expiresAt(Instant notOnOrAfter) {
+		Instant expiresAt = Instant.now().plus(this.window);
+		if (notOnOrAfter == null) {
+			return expiresAt;
+		}
+		Instant valid = notOnOrAfter.plus(this.clockSkew);
+		return valid.isAfter(expiresAt) ? valid : expiresAt;
+	}
+
+	private Duration expiresAfter(String id, Instant expiresAt) {
+		Duration expiresAfter = Duration.between(Instant.now(), expiresAt);
+		return expiresAfter.isNegative() ? Duration.ZERO : expiresAfter;
+	}
+
+	private Response parse(String response) {
+		List<String> ids = new ArrayList<>();
+		Instant notOnOrAfter = null;
+		try {
+			XMLStreamReader reader = this.xmlInputFactory.createXMLStreamReader(new StringReader(response));
+			try {
+				// the depth of the current element, and of the encrypted assertion and its
+				// encrypted data it is in
+				int depth = 0;
+				int encryptedAssertion = -1;
+				int encryptedData = -1;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.END_ELEMENT) {
+						if (depth == encryptedData) {
+							encryptedData = -1;
+						}
+						if (depth == encryptedAssertion) {
+							encryptedAssertion = -1;
+						}
+						depth--;
+						continue;
+					}
+					if (event != XMLStreamConstants.START_ELEMENT) {
+						continue;
+					}
+					depth++;
+					if (isIdentified(reader)) {
+						String id = reader.getAttributeValue(null, "ID");
+						if (id != null) {
+							ids.add(id);
+						}
+					}
+					if (ASSERTION_NS.equals(reader.getNamespaceURI())) {
+						notOnOrAfter = latest(notOnOrAfter, reader.getAttributeValue(null, "NotOnOrAfter"));
+						if ("EncryptedAssertion".equals(reader.getLocalName())) {
+							encryptedAssertion = depth;
+						}
+					}
+					if (encryptedAssertion != -1 && depth == encryptedAssertion + 1
+							&& isEncryption(reader, "EncryptedData")) {
+						encryptedData = depth;
+					}
+					// EncryptedData/CipherData/CipherValue, and not the CipherValue of a key
+					if (encryptedData != -1 && depth == encryptedData + 2 && isEncryption(reader, "CipherValue")) {
+						String digest = digest(reader.getElementText());
+						depth--;
+						if (digest != null) {
+							ids.add(digest);
+						}
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (XMLStreamException ex) {
+			// the delegate rejects the malformed response
+		}
+		return new Response(ids, notOnOrAfter);
+	}
+
+	private static String digest(String cipherValue) {
+		try {
+			// decoded, so that the same ciphertext encoded differently has the same digest
+			byte[] ciphertext = Base64.getMimeDecoder().decode(cipherValue);
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(ciphertext);
+			return "EncryptedAssertion:" + Base64.getEncoder().encodeToString(digest);
+		}
+		catch (IllegalArgumentException ex) {
+			// the delegate rejects the malformed response
+			return null;
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Instant latest(Instant latest, String value) {
+		if (value == null) {
+			return latest;
+		}
+		try {
+			Instant instant = Instant.parse(value);
+			return (latest == null || instant.isAfter(latest)) ? instant : latest;
+		}
+		catch (DateTimeParseException ex) {
+			// the delegate rejects the malformed response
+			return latest;
+		}
+	}
+
+	private static boolean isIdentified(XMLStreamReader reader) {
+		return (PROTOCOL_NS.equals(reader.getNamespaceURI()) && "Response".equals(reader.getLocalName()))
+				|| (ASSERTION_NS.equals(reader.getNamespaceURI()) && "Assertion".equals(reader.getLocalName()));
+	}
+
+	private static boolean isEncryption(XMLStreamReader reader, String localName) {
+		return ENCRYPTION_NS.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+	}
+
+	private static Saml2AuthenticationException replayed(String id) {
+		return new Saml2AuthenticationException(
+				new Saml2Error(Saml2ErrorCodes.INVALID_RESPONSE, "The response with ID " + id + " was already used"));
+	}
+
+	private static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private record Response(List<String> ids, Instant notOnOrAfter) {
+
+	}
+
+}
@@ -16,8 +16,18 @@
 
 package example;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.htmlunit.ElementNotFoundException;
 import org.htmlunit.WebClient;
@@ -29,11 +39,15 @@ import org.htmlunit.html.HtmlPage;
 import org.htmlunit.html.HtmlPasswordInput;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadata;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -47,6 +61,18 @@ class Saml2LoginApplicationITests {
 	@Autowired
 	WebClient webClient;
 
+	@Autowired
+	SourcedRelyingPartyRegistrationRepository registrations;
+
+	@Autowired
+	RefreshingAssertingPartyMetadataRepository assertingParties;
+
+	@Autowired
+	RelyingPartyMetadata relyingPartyMetadata;
+
+	@TempDir
+	Path directory;
+
 	@BeforeEach
 	void setup() {
 		this.webClient.getCookieManager().clearCookies();
@@ -81,6 +107,108 @@ class Saml2LoginApplicationITests {
 		}).contains("/login?logout");
 	}
 
+	@Test
+	void findByRegistrationIdWhenMetadataUnchangedThenSameRegistration() {
+		RelyingPartyRegistration registration = this.registrations.iterator().next();
+		assertThat(this.registrations.findByRegistrationId(registration.getRegistrationId())).isSameAs(registration);
+		assertThat(this.registrations.findByRegistrationId(registration.getRegistrationId())).isSameAs(registration);
+	}
+
+	@Test
+	void findByRegistrationIdWhenMetadataChangedThenRebuilt() throws Exception {
+		Path file = this.directory.resolve("metadata.xml");
+		writeMetadata(file, 1, entityDescriptor("https://one.example.org", "https://one.example.org/sso"),
+				entityDescriptor("https://two.example.org", "https://two.example.org/sso"));
+		RefreshingAssertingPartyMetadataRepository assertingParties = new RefreshingAssertingPartyMetadataRepository(
+				file.toUri().toString(), null);
+		SourcedRelyingPartyRegistrationRepository registrations = new SourcedRelyingPartyRegistrationRepository(
+				assertingParties, this.relyingPartyMetadata);
+		RelyingPartyRegistration one = registrations.findByRegistrationId("https://one.example.org");
+		RelyingPartyRegistration two = registrations.findByRegistrationId("https://two.example.org");
+
+		writeMetadata(file, 2, entityDescriptor("https://one.example.org", "https://one.example.org/sso/v2"),
+				entityDescriptor("https://two.example.org", "https://two.example.org/sso"));
+		assertThat(assertingParties.refresh()).isTrue();
+
+		RelyingPartyRegistration refreshed = registrations.findByRegistrationId("https://one.example.org");
+		assertThat(refreshed).isNotSameAs(one);
+		assertThat(refreshed.getAssertingPartyMetadata().getSingleSignOnServiceLocation())
+			.isEqualTo("https://one.example.org/sso/v2");
+		assertThat(registrations.findByRegistrationId("https://two.example.org")).isSameAs(two);
+	}
+
+	@Test
+	void findByRegistrationIdWhenEntityRemovedThenDropped() throws Exception {
+		Path file = this.directory.resolve("metadata.xml");
+		writeMetadata(file, 1, entityDescriptor("https://one.example.org", "https://one.example.org/sso"),
+				entityDescriptor("https://two.example.org", "https://two.example.org/sso"));
+		RefreshingAssertingPartyMetadataRepository assertingParties = new RefreshingAssertingPartyMetadataRepository(
+				file.toUri().toString(), null);
+		SourcedRelyingPartyRegistrationRepository registrations = new SourcedRelyingPartyRegistrationRepository(
+				assertingParties, this.relyingPartyMetadata);
+		RelyingPartyRegistration one = registrations.findByRegistrationId("https://one.example.org");
+		assertThat(registrations.findByRegistrationId("https://two.example.org")).isNotNull();
+
+		writeMetadata(file, 2, entityDescriptor("https://one.example.org", "https://one.example.org/sso"));
+		assertThat(assertingParties.refresh()).isTrue();
+
+		assertThat(registrations.findByRegistrationId("https://two.example.org")).isNull();
+		assertThat(registrations.findByRegistrationId("https://one.example.org")).isSameAs(one);
+	}
+
+	@Test
+	void findByEntityIdWhileRefreshingThenAlwaysFound() {
+		AssertingPartyMetadata metadata = this.assertingParties.iterator().next();
+		AtomicBoolean refreshing = new AtomicBoolean(true);
+		AtomicInteger missing = new AtomicInteger();
+		List<CompletableFuture<Void>> logins = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			logins.add(CompletableFuture.runAsync(() -> {
+				while (refreshing.get()) {
+					if (this.assertingParties.findByEntityId(metadata.getEntityId()) == null) {
+						missing.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (int i = 0; i < 10; i++) {
+			this.assertingParties.refresh();
+		}
+		refreshing.set(false);
+		CompletableFuture.allOf(logins.toArray(CompletableFuture[]::new)).join();
+		assertThat(missing).hasValue(0);
+		assertThat(this.assertingParties.findByEntityId(metadata.getEntityId())).isSameAs(metadata);
+	}
+
+	private static void writeMetadata(Path file, int version, String... entityDescriptors) throws IOException {
+		String metadata = "<md:EntitiesDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" "
+				+ "xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">" + String.join("", entityDescriptors)
+				+ "</md:EntitiesDescriptor>";
+		Files.writeString(file, metadata);
+		// the metadata is only read again when its last modified time changed
+		Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(version)));
+	}
+
+	private static String entityDescriptor(String entityId, String singleSignOnServiceLocation) throws IOException {
+		// @formatter:off
+		return "<md:EntityDescriptor entityID=\"" + entityId + "\">"
+				+ "<md:IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ "<md:KeyDescriptor use=\"signing\"><ds:KeyInfo><ds:X509Data><ds:X509Certificate>"
+				+ certificate()
+				+ "</ds:X509Certificate></ds:X509Data></ds:KeyInfo></md:KeyDescriptor>"
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"" + singleSignOnServiceLocation + "\"/>"
+				+ "</md:IDPSSODescriptor>"
+				+ "</md:EntityDescriptor>";
+		// @formatter:on
+	}
+
+	private static String certificate() throws IOException {
+		try (InputStream in = new ClassPathResource("credentials/idp-certificate.crt").getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.US_ASCII).replaceAll("-----[A-Z ]+-----|\\s", "");
+		}
+	}
+
 	private void performLogin() throws Exception {
 		HtmlPage login = this.webClient.getPage("http://localhost:" + this.port);
 		this.webClient.waitForBackgroundJavaScript(10000);
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
+import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.saml.common.xml.SAMLConstants;
+import org.opensaml.saml.ext.saml2alg.SigningMethod;
+import org.opensaml.saml.saml2.metadata.EntitiesDescriptor;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.Extensions;
+import org.opensaml.saml.saml2.metadata.IDPSSODescriptor;
+import org.opensaml.saml.saml2.metadata.KeyDescriptor;
+import org.opensaml.saml.saml2.metadata.SingleLogoutService;
+import org.opensaml.saml.saml2.metadata.SingleSignOnService;
+import org.opensaml.saml.security.impl.SAMLSignatureProfileValidator;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.credential.UsageType;
+import org.opensaml.security.x509.BasicX509Credential;
+import org.opensaml.xmlsec.keyinfo.KeyInfoSupport;
+import org.opensaml.xmlsec.signature.SignableXMLObject;
+import org.opensaml.xmlsec.signature.support.SignatureException;
+import org.opensaml.xmlsec.signature.support.SignatureValidator;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import org.springframework.boot.io.ApplicationResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.saml2.Saml2Exception;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadata;
+import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadataRepository;
+import org.springframework.security.saml2.provider.service.registration.OpenSamlAssertingPartyDetails;
+import org.springframework.security.saml2.provider.service.registration.Saml2MessageBinding;
+
+/**
+ * An {@link AssertingPartyMetadataRepository} that refreshes its metadata in the
+ * background, without ever making a lookup wait for it.
+ *
+ * <p>
+ * Lookups read an immutable snapshot of the asserting parties. Every
+ * {@code saml2.ap.refresh-interval}, the metadata is fetched again, skipping the rest of
+ * the refresh when it has not changed since the last fetch, as told by its
+ * {@code ETag} or {@code Last-Modified} header, or by its last modified time when it is
+ * not fetched over HTTP. Otherwise, it is parsed, its signature verified when a
+ * verification certificate is given, and compared to the current snapshot. Asserting
+ * parties whose metadata did not change keep the same {@link AssertingPartyMetadata}
+ * instance, and the new snapshot replaces the current one in a single step. When a
+ * refresh fails, the current snapshot is kept until the next one.
+ *
+ * <p>
+ * Each changed {@code EntityDescriptor} is read the way Spring Security reads asserting
+ * party metadata: its entity id, its signing and encryption certificates, its preferred
+ * signing algorithms, and its first single sign-on and single logout services with a
+ * supported binding. Asserting parties that cannot be read that way are skipped.
+ */
+public final class RefreshingAssertingPartyMetadataRepository implements AssertingPartyMetadataRepository {
+
+	private static final Log logger = LogFactory.getLog(RefreshingAssertingPartyMetadataRepository.class);
+
+	private final String location;
+
+	private final Credential verificationCredential;
+
+	private final HttpClient http = HttpClient.newBuilder()
+		.connectTimeout(Duration.ofSeconds(10))
+		.followRedirects(HttpClient.Redirect.NORMAL)
+		.build();
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+			new Snapshot(Collections.emptyMap(), null, null));
+
+	/**
+	 * Fetches the metadata at the given location.
+	 * @param location the metadata's location
+	 * @param verificationCertificate the certificate to verify the metadata's signature
+	 * with, or {@code null} if the metadata is trusted
+	 */
+	public RefreshingAssertingPartyMetadataRepository(String location, X509Certificate verificationCertificate) {
+		this.location = location;
+		this.verificationCredential = (verificationCertificate != null)
+				? new BasicX509Credential(verificationCertificate) : null;
+		refresh();
+	}
+
+	@Override
+	public AssertingPartyMetadata findByEntityId(String entityId) {
+		return this.snapshot.get().assertingParties().get(entityId);
+	}
+
+	@Override
+	public Iterator<AssertingPartyMetadata> iterator() {
+		return Collections.<AssertingPartyMetadata>unmodifiableCollection(
+				this.snapshot.get().assertingParties().values())
+			.iterator();
+	}
+
+	@Scheduled(fixedDelayString = "${saml2.ap.refresh-interval:5m}",
+			initialDelayString = "${saml2.ap.refresh-interval:5m}")
+	public void refreshQuietly() {
+		try {
+			refresh();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Failed to refresh the metadata from " + this.location + ", will retry", ex);
+		}
+	}
+
+	/**
+	 * Fetches the metadata, and replaces the current snapshot if it changed.
+	 * @return whether the metadata changed
+	 */
+	public synchronized boolean refresh() {
+		Snapshot current = this.snapshot.get();
+		Fetched fetched = fetch(current);
+		if (fetched == null) {
+			return false;
+		}
+		XMLObject metadata = parse(fetched.content());
+		verify(metadata);
+		Map<String, OpenSamlAssertingPartyDetails> assertingParties = new LinkedHashMap<>();
+		collect(metadata, current, assertingParties);
+		this.snapshot.set(new Snapshot(Collections.unmodifiableMap(assertingParties), fetched.etag(),
+				fetched.lastModified()));
+		return true;
+	}
+
+	private Fetched fetch(Snapshot current) {
+		if (this.location.startsWith("http:") || this.location.startsWith("https:")) {
+			return fetchOverHttp(current);
+		}
+		Resource resource = ApplicationResourceLoader.get().getResource(this.location);
+		try {
+			String lastModified = String.valueOf(resource.lastModified());
+			if (lastModified.equals(current.lastModified())) {
+				return null;
+			}
+			try (InputStream in = resource.getInputStream()) {
+				return new Fetched(in.readAllBytes(), null, lastModified);
+			}
+		}
+		catch (IOException ex) {
+			throw new Saml2Exception("Failed to read the metadata from " + this.location, ex);
+		}
+	}
+
+	private Fetched fetchOverHttp(Snapshot current) {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(this.location))
+			.timeout(Duration.ofSeconds(30))
+			.GET();
+		if (current.etag() != null) {
+			request.header("If-None-Match", current.etag());
+		}
+		if (current.lastModified() != null) {
+			request.header("If-Modified-Since", current.lastModified());
+		}
+		try {
+			HttpResponse<byte[]> response = this.http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+			if (response.statusCode() == 304) {
+				return null;
+			}
+			if (response.statusCode() != 200) {
+				throw new Saml2Exception(
+						"Failed to fetch the metadata from " + this.location + ": HTTP " + response.statusCode());
+			}
+			return new Fetched(response.body(), response.headers().firstValue("ETag").orElse(null),
+					response.headers().firstValue("Last-Modified").orElse(null));
+		}
+		catch (IOException ex) {
+			throw new Saml2Exception("Failed to fetch the metadata from " + this.location, ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new Saml2Exception("Interrupted while fetching the metadata from " + this.location, ex);
+		}
+	}
+
+	private XMLObject parse(byte[] content) {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			Element element = factory.newDocumentBuilder()
+				.parse(new ByteArrayInputStream(content))
+				.getDocumentElement();
+			return XMLObjectProviderRegistrySupport.getUnmarshallerFactory()
+				.getUnmarshaller(element)
+				.unmarshall(element);
+		}
+		catch (ParserConfigurationException | SAXException | IOException | UnmarshallingException ex) {
+			throw new Saml2Exception("Failed to parse the metadata from " + this.location, ex);
+		}
+	}
+
+	private void verify(XMLObject metadata) {
+		if (this.verificationCredential == null) {
+			return;
+		}
+		if (!(metadata instanceof SignableXMLObject signable) || !signable.isSigned()) {
+			throw new Saml2Exception("The metadata from " + this.location + " is not signed");
+		}
+		try {
+			new SAMLSignatureProfileValidator().validate(signable.getSignature());
+			SignatureValidator.validate(signable.getSignature(), this.verificationCredential);
+		}
+		catch (SignatureException ex) {
+			throw new Saml2Exception("The signature of the metadata from " + this.location + " is invalid", ex);
+		}
+	}
+
+	private static void collect(XMLObject metadata, Snapshot current,
+			Map<String, OpenSamlAssertingPartyDetails> assertingParties) {
+		if (metadata instanceof EntitiesDescriptor entities) {
+			for (EntityDescriptor entity : entities.getEntityDescriptors()) {
+				collect(entity, current, assertingParties);
+			}
+			for (EntitiesDescriptor nested : entities.getEntitiesDescriptors()) {
+				collect(nested, current, assertingParties);
+			}
+		}
+		else if (metadata instanceof EntityDescriptor entity
+				&& entity.getIDPSSODescriptor(SAMLConstants.SAML20P_NS) != null) {
+			OpenSamlAssertingPartyDetails previous = current.assertingParties().get(entity.getEntityID());
+			if (previous != null && isUnchanged(previous.getEntityDescriptor(), entity)) {
+				assertingParties.putIfAbsent(entity.getEntityID(), previous);
+			}
+			else {
+				try {
+					assertingParties.putIfAbsent(entity.getEntityID(), details(entity));
+				}
+				catch (Saml2Exception ex) {
+					logger.warn("Skipping asserting party " + entity.getEntityID() + ": " + ex.getMessage());
+				}
+			}
+		}
+	}
+
+	private static OpenSamlAssertingPartyDetails details(EntityDescriptor entity) {
+		IDPSSODescriptor idp = entity.getIDPSSODescriptor(SAMLConstants.SAML20P_NS);
+		List<Saml2X509Credential> verification = new ArrayList<>();
+		List<Saml2X509Credential> encryption = new ArrayList<>();
+		for (KeyDescriptor key : idp.getKeyDescriptors()) {
+			UsageType use = (key.getUse() != null) ? key.getUse() : UsageType.UNSPECIFIED;
+			for (X509Certificate certificate : certificates(key)) {
+				if (use == UsageType.SIGNING || use == UsageType.UNSPECIFIED) {
+					verification.add(Saml2X509Credential.verification(certificate));
+				}
+				if (use == UsageType.ENCRYPTION || use == UsageType.UNSPECIFIED) {
+					encryption.add(Saml2X509Credential.encryption(certificate));
+				}
+			}
+		}
+		if (verification.isEmpty()) {
+			throw new Saml2Exception("The metadata has no signing certificate");
+		}
+		OpenSamlAssertingPartyDetails.Builder builder = OpenSamlAssertingPartyDetails.withEntityDescriptor(entity);
+		builder.entityId(entity.getEntityID());
+		builder.wantAuthnRequestsSigned(Boolean.TRUE.equals(idp.getWantAuthnRequestsSigned()));
+		builder.verificationX509Credentials((credentials) -> credentials.addAll(verification));
+		builder.encryptionX509Credentials((credentials) -> credentials.addAll(encryption));
+		List<String> algorithms = new ArrayList<>();
+		signingAlgorithms(entity.getExtensions(), algorithms);
+		signingAlgorithms(idp.getExtensions(), algorithms);
+		builder.signingAlgorithms((signingAlgorithms) -> signingAlgorithms.addAll(algorithms));
+		SingleSignOnService singleSignOn = null;
+		for (SingleSignOnService service : idp.getSingleSignOnServices()) {
+			if (binding(service.getBinding()) != null) {
+				singleSignOn = service;
+				break;
+			}
+		}
+		if (singleSignOn == null) {
+			throw new Saml2Exception("The metadata has no single sign-on service with a supported binding");
+		}
+		builder.singleSignOnServiceLocation(singleSignOn.getLocation());
+		builder.singleSignOnServiceBinding(binding(singleSignOn.getBinding()));
+		for (SingleLogoutService service : idp.getSingleLogoutServices()) {
+			Saml2MessageBinding binding = binding(service.getBinding());
+			if (binding != null) {
+				String responseLocation = (service.getResponseLocation() != null) ? service.getResponseLocation()
+						: service.getLocation();
+				builder.singleLogoutServiceLocation(service.getLocation());
+				builder.singleLogoutServiceResponseLocation(responseLocation);
+				builder.singleLogoutServiceBinding(binding);
+				break;
+			}
+		}
+		return builder.build();
+	}
+
+	private static List<X509Certificate> certificates(KeyDescriptor key) {
+		try {
+			return KeyInfoSupport.getCertificates(key.getKeyInfo());
+		}
+		catch (CertificateException ex) {
+			throw new Saml2Exception("The metadata has a malformed certificate", ex);
+		}
+	}
+
+	private static void signingAlgorithms(Extensions extensions, List<String> algorithms) {
+		if (extensions == null) {
+			return;
+		}
+		for (XMLObject object : extensions.getUnknownXMLObjects(SigningMethod.DEFAULT_ELEMENT_NAME)) {
+			String algorithm = ((SigningMethod) object).getAlgorithm();
+			if (algorithm != null && !algorithms.contains(algorithm)) {
+				algorithms.add(algorithm);
+			}
+		}
+	}
+
+	private static Saml2MessageBinding binding(String binding) {
+		if (SAMLConstants.SAML2_POST_BINDING_URI.equals(binding)) {
+			return Saml2MessageBinding.POST;
+		}
+		if (SAMLConstants.SAML2_REDIRECT_BINDING_URI.equals(binding)) {
+			return Saml2MessageBinding.REDIRECT;
+		}
+		return null;
+	}
+
+	private static boolean isUnchanged(EntityDescriptor previous, EntityDescriptor entity) {
+		return previous.getDOM() != null && entity.getDOM() != null && previous.getDOM().isEqualNode(entity.getDOM());
+	}
+
+	/**
+	 * The asserting parties, and what is needed to tell whether their metadata changed.
+	 */
+	private record Snapshot(Map<String, OpenSamlAssertingPartyDetails> assertingParties, String etag,
+			String lastModified) {
+
+	}
+
+	private record Fetched(byte[] content, String etag, String lastModified) {
+
+	}
+
+}
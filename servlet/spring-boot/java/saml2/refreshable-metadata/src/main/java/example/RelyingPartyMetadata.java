@@ -48,8 +48,10 @@ public class RelyingPartyMetadata {
 
 	private RSAPrivateKey key;
 
+	private volatile Saml2X509Credential signing;
+
 	public RelyingPartyRegistration apply(RelyingPartyRegistration.Builder builder) {
-		Saml2X509Credential signing = Saml2X509Credential.signing(this.key, this.certificate);
+		Saml2X509Credential signing = signing();
 		return builder.entityId(this.entityId)
 			.assertionConsumerServiceLocation(this.sso)
 			.singleLogoutServiceBinding(this.slo.getBinding())
@@ -59,6 +61,15 @@ public class RelyingPartyMetadata {
 			.build();
 	}
 
+	private Saml2X509Credential signing() {
+		Saml2X509Credential signing = this.signing;
+		if (signing == null) {
+			signing = Saml2X509Credential.signing(this.key, this.certificate);
+			this.signing = signing;
+		}
+		return signing;
+	}
+
 	public void setEntityId(String entityId) {
 		this.entityId = entityId;
 	}
@@ -76,6 +87,7 @@ public class RelyingPartyMetadata {
 		try (InputStream in = source.getInputStream()) {
 			CertificateFactory certificates = CertificateFactory.getInstance("X.509");
 			this.certificate = (X509Certificate) certificates.generateCertificate(in);
+			this.signing = null;
 		}
 		catch (CertificateException | IOException ex) {
 			throw new IllegalArgumentException(ex);
@@ -84,6 +96,7 @@ public class RelyingPartyMetadata {
 
 	public void setKey(RSAPrivateKey key) {
 		this.key = key;
+		this.signing = null;
 	}
 
 	public static class SingleLogout {
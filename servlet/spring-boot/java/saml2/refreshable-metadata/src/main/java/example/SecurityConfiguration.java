@@ -16,13 +16,21 @@
 
 package example;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.saml2.core.OpenSamlInitializationService;
-import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadataRepository;
-import org.springframework.security.saml2.provider.service.registration.OpenSaml5AssertingPartyMetadataRepository;
+import org.springframework.security.saml2.provider.service.authentication.OpenSaml5AuthenticationProvider;
 import org.springframework.security.web.SecurityFilterChain;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -35,21 +43,37 @@ public class SecurityConfiguration {
 	}
 
 	@Bean
-	SecurityFilterChain app(HttpSecurity http) throws Exception {
+	SecurityFilterChain app(HttpSecurity http, @Value("${saml2.replay.window:5m}") Duration replayWindow,
+			@Value("${saml2.replay.clock-skew:5m}") Duration clockSkew,
+			@Value("${saml2.replay.maximum-size:1000000}") long maximumSize) throws Exception {
+		ProviderManager authenticationManager = new ProviderManager(new ReplayRejectingAuthenticationProvider(
+				new OpenSaml5AuthenticationProvider(), replayWindow, clockSkew, maximumSize));
 		// @formatter:off
 		http
 			.authorizeHttpRequests((authorize) -> authorize
 				.anyRequest().authenticated()
 			)
-			.saml2Login(withDefaults())
+			.saml2Login((saml2) -> saml2.authenticationManager(authenticationManager))
 			.saml2Logout(withDefaults());
 		// @formatter:on
 		return http.build();
 	}
 
 	@Bean
-	AssertingPartyMetadataRepository assertingParties(@Value("${saml2.ap.metadata}") String location) {
-		return OpenSaml5AssertingPartyMetadataRepository.withTrustedMetadataLocation(location).build();
+	RefreshingAssertingPartyMetadataRepository assertingParties(@Value("${saml2.ap.metadata}") String location,
+			@Value("${saml2.ap.verification-certificate:#{null}}") Resource verificationCertificate) {
+		X509Certificate certificate = (verificationCertificate != null) ? certificate(verificationCertificate) : null;
+		return new RefreshingAssertingPartyMetadataRepository(location, certificate);
+	}
+
+	private static X509Certificate certificate(Resource source) {
+		try (InputStream in = source.getInputStream()) {
+			CertificateFactory certificates = CertificateFactory.getInstance("X.509");
+			return (X509Certificate) certificates.generateCertificate(in);
+		}
+		catch (CertificateException | IOException ex) {
+			throw new IllegalArgumentException(ex);
+		}
 	}
 
 }
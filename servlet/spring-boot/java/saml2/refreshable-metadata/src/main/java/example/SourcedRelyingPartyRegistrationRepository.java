@@ -17,13 +17,26 @@
 package example;
 
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadata;
 import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadataRepository;
 import org.springframework.security.saml2.provider.service.registration.IterableRelyingPartyRegistrationRepository;
+import org.springframework.security.saml2.provider.service.registration.OpenSamlAssertingPartyDetails;
 import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
 import org.springframework.stereotype.Component;
 
+/**
+ * Builds a {@link RelyingPartyRegistration} for each asserting party in an
+ * {@link AssertingPartyMetadataRepository}.
+ *
+ * <p>
+ * Each registration is built once and then remembered by the asserting party's entity
+ * id. Every lookup compares the remembered registration to the asserting party's current
+ * metadata, so a registration whose metadata was refreshed is built again, and one whose
+ * asserting party was removed is forgotten, as soon as the metadata changes.
+ */
 @Component
 public class SourcedRelyingPartyRegistrationRepository implements IterableRelyingPartyRegistrationRepository {
 
@@ -31,6 +44,8 @@ public class SourcedRelyingPartyRegistrationRepository implements IterableRelyin
 
 	private final RelyingPartyMetadata metadata;
 
+	private final Map<String, Memoized> registrations = new ConcurrentHashMap<>();
+
 	public SourcedRelyingPartyRegistrationRepository(AssertingPartyMetadataRepository assertingParties,
 			RelyingPartyMetadata metadata) {
 		this.assertingParties = assertingParties;
@@ -40,13 +55,16 @@ public class SourcedRelyingPartyRegistrationRepository implements IterableRelyin
 	@Override
 	public RelyingPartyRegistration findByRegistrationId(String registrationId) {
 		AssertingPartyMetadata metadata = this.assertingParties.findByEntityId(registrationId);
-		return this.metadata.apply(RelyingPartyRegistration.withAssertingPartyMetadata(metadata));
+		if (metadata == null) {
+			this.registrations.remove(registrationId);
+			return null;
+		}
+		return registration(metadata);
 	}
 
 	@Override
 	public Iterator<RelyingPartyRegistration> iterator() {
 		Iterator<AssertingPartyMetadata> assertingParties = this.assertingParties.iterator();
-		RelyingPartyMetadata metadata = this.metadata;
 		return new Iterator<>() {
 			@Override
 			public boolean hasNext() {
@@ -55,9 +73,36 @@ public class SourcedRelyingPartyRegistrationRepository implements IterableRelyin
 
 			@Override
 			public RelyingPartyRegistration next() {
-				return metadata.apply(RelyingPartyRegistration.withAssertingPartyMetadata(assertingParties.next()));
+				return registration(assertingParties.next());
 			}
 		};
 	}
 
+	private RelyingPartyRegistration registration(AssertingPartyMetadata metadata) {
+		Object source = source(metadata);
+		Memoized memoized = this.registrations.get(metadata.getEntityId());
+		if (memoized == null || memoized.source() != source) {
+			memoized = new Memoized(source,
+					this.metadata.apply(RelyingPartyRegistration.withAssertingPartyMetadata(metadata)));
+			this.registrations.put(metadata.getEntityId(), memoized);
+		}
+		return memoized.registration();
+	}
+
+	/**
+	 * The object that stays the same for as long as the asserting party's metadata is not
+	 * refreshed, which for OpenSAML is the {@code EntityDescriptor} the metadata was read
+	 * from.
+	 */
+	private static Object source(AssertingPartyMetadata metadata) {
+		if (metadata instanceof OpenSamlAssertingPartyDetails details) {
+			return details.getEntityDescriptor();
+		}
+		return metadata;
+	}
+
+	private record Memoized(Object source, RelyingPartyRegistration registration) {
+
+	}
+
 }
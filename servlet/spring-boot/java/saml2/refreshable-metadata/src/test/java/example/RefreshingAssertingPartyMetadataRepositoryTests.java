@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.saml2.core.OpenSamlInitializationService;
+import org.springframework.security.saml2.core.Saml2X509Credential;
+import org.springframework.security.saml2.provider.service.registration.AssertingPartyMetadata;
+import org.springframework.security.saml2.provider.service.registration.Saml2MessageBinding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RefreshingAssertingPartyMetadataRepository}.
+ */
+class RefreshingAssertingPartyMetadataRepositoryTests {
+
+	private static final String ONE = "https://one.example.org";
+
+	private static final String TWO = "https://two.example.org";
+
+	private static final String RSA_SHA512 = "http://www.w3.org/2001/04/xmldsig-more#rsa-sha512";
+
+	@TempDir
+	Path directory;
+
+	private Path file;
+
+	private X509Certificate certificate;
+
+	@BeforeAll
+	static void initialize() {
+		OpenSamlInitializationService.initialize();
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		this.file = this.directory.resolve("metadata.xml");
+		try (InputStream in = new ClassPathResource("credentials/idp-certificate.crt").getInputStream()) {
+			this.certificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+		}
+	}
+
+	@Test
+	void findByEntityIdWhenMetadataThenReadsAssertingPartyDetails() throws Exception {
+		writeMetadata(1, entityDescriptor(ONE, ONE + "/sso"));
+		RefreshingAssertingPartyMetadataRepository assertingParties = repository();
+
+		AssertingPartyMetadata one = assertingParties.findByEntityId(ONE);
+
+		assertThat(one.getEntityId()).isEqualTo(ONE);
+		assertThat(one.getWantAuthnRequestsSigned()).isTrue();
+		assertThat(one.getSingleSignOnServiceLocation()).isEqualTo(ONE + "/sso");
+		assertThat(one.getSingleSignOnServiceBinding()).isEqualTo(Saml2MessageBinding.REDIRECT);
+		assertThat(one.getSingleLogoutServiceLocation()).isEqualTo(ONE + "/slo");
+		assertThat(one.getSingleLogoutServiceResponseLocation()).isEqualTo(ONE + "/slo/response");
+		assertThat(one.getSingleLogoutServiceBinding()).isEqualTo(Saml2MessageBinding.POST);
+		assertThat(one.getVerificationX509Credentials()).extracting(Saml2X509Credential::getCertificate)
+			.containsExactly(this.certificate);
+		assertThat(one.getEncryptionX509Credentials()).extracting(Saml2X509Credential::getCertificate)
+			.containsExactly(this.certificate);
+		assertThat(one.getSigningAlgorithms()).containsExactly(RSA_SHA512);
+	}
+
+	@Test
+	void refreshWhenEntityChangedThenRereadsOnlyThatEntity() throws Exception {
+		writeMetadata(1, entityDescriptor(ONE, ONE + "/sso"), entityDescriptor(TWO, TWO + "/sso"));
+		RefreshingAssertingPartyMetadataRepository assertingParties = repository();
+		AssertingPartyMetadata one = assertingParties.findByEntityId(ONE);
+		AssertingPartyMetadata two = assertingParties.findByEntityId(TWO);
+
+		writeMetadata(2, entityDescriptor(ONE, ONE + "/sso/v2"), entityDescriptor(TWO, TWO + "/sso"));
+
+		assertThat(assertingParties.refresh()).isTrue();
+		AssertingPartyMetadata refreshed = assertingParties.findByEntityId(ONE);
+		assertThat(refreshed).isNotSameAs(one);
+		assertThat(refreshed.getSingleSignOnServiceLocation()).isEqualTo(ONE + "/sso/v2");
+		assertThat(refreshed.getVerificationX509Credentials()).isNotEmpty();
+		assertThat(assertingParties.findByEntityId(TWO)).isSameAs(two);
+	}
+
+	@Test
+	void refreshWhenUnmodifiedThenKeepsSnapshot() throws Exception {
+		writeMetadata(1, entityDescriptor(ONE, ONE + "/sso"));
+		RefreshingAssertingPartyMetadataRepository assertingParties = repository();
+		AssertingPartyMetadata one = assertingParties.findByEntityId(ONE);
+
+		assertThat(assertingParties.refresh()).isFalse();
+		assertThat(assertingParties.findByEntityId(ONE)).isSameAs(one);
+	}
+
+	@Test
+	void findByEntityIdWhenEntityHasNoSigningCertificateThenSkipped() throws Exception {
+		// @formatter:off
+		String unsigned = "<md:EntityDescriptor entityID=\"" + TWO + "\">"
+				+ "<md:IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"" + TWO + "/sso\"/>"
+				+ "</md:IDPSSODescriptor>"
+				+ "</md:EntityDescriptor>";
+		// @formatter:on
+		writeMetadata(1, entityDescriptor(ONE, ONE + "/sso"), unsigned);
+
+		RefreshingAssertingPartyMetadataRepository assertingParties = repository();
+
+		assertThat(assertingParties.findByEntityId(ONE)).isNotNull();
+		assertThat(assertingParties.findByEntityId(TWO)).isNull();
+	}
+
+	private RefreshingAssertingPartyMetadataRepository repository() {
+		return new RefreshingAssertingPartyMetadataRepository(this.file.toUri().toString(), null);
+	}
+
+	private void writeMetadata(int version, String... entityDescriptors) throws IOException {
+		String metadata = "<md:EntitiesDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" "
+				+ "xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\" "
+				+ "xmlns:alg=\"urn:oasis:names:tc:SAML:metadata:algsupport\">" + String.join("", entityDescriptors)
+				+ "</md:EntitiesDescriptor>";
+		Files.writeString(this.file, metadata);
+		// the metadata is only read again when its last modified time changed
+		Files.setLastModifiedTime(this.file,
+				FileTime.from(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(version)));
+	}
+
+	private String entityDescriptor(String entityId, String singleSignOnServiceLocation) throws Exception {
+		String certificate = Base64.getEncoder().encodeToString(this.certificate.getEncoded());
+		// @formatter:off
+		return "<md:EntityDescriptor entityID=\"" + entityId + "\">"
+				+ "<md:IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\" "
+				+ "WantAuthnRequestsSigned=\"true\">"
+				+ "<md:Extensions><alg:SigningMethod Algorithm=\"" + RSA_SHA512 + "\"/></md:Extensions>"
+				+ "<md:KeyDescriptor><ds:KeyInfo><ds:X509Data><ds:X509Certificate>"
+				+ certificate
+				+ "</ds:X509Certificate></ds:X509Data></ds:KeyInfo></md:KeyDescriptor>"
+				+ "<md:SingleLogoutService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:SOAP\" "
+				+ "Location=\"" + entityId + "/slo/soap\"/>"
+				+ "<md:SingleLogoutService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-POST\" "
+				+ "Location=\"" + entityId + "/slo\" ResponseLocation=\"" + entityId + "/slo/response\"/>"
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Artifact\" "
+				+ "Location=\"" + entityId + "/sso/artifact\"/>"
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"" + singleSignOnServiceLocation + "\"/>"
+				+ "</md:IDPSSODescriptor>"
+				+ "</md:EntityDescriptor>";
+		// @formatter:on
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.saml2.core.Saml2ErrorCodes;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationException;
+import org.springframework.security.saml2.provider.service.authentication.Saml2AuthenticationToken;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link ReplayRejectingAuthenticationProvider}.
+ */
+class ReplayRejectingAuthenticationProviderTests {
+
+	private final AtomicInteger authentications = new AtomicInteger();
+
+	private final AuthenticationProvider delegate = new AuthenticationProvider() {
+		@Override
+		public Authentication authenticate(Authentication authentication) {
+			ReplayRejectingAuthenticationProviderTests.this.authentications.incrementAndGet();
+			return authentication;
+		}
+
+		@Override
+		public boolean supports(Class<?> authentication) {
+			return true;
+		}
+	};
+
+	@Test
+	void authenticateWhenResponseReplayedThenRejectsBeforeDelegating() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ofMinutes(5), 10);
+		Saml2AuthenticationToken token = token("response", "assertion", null);
+
+		provider.authenticate(token);
+
+		assertThatExceptionOfType(Saml2AuthenticationException.class).isThrownBy(() -> provider.authenticate(token))
+			.satisfies((ex) -> assertThat(ex.getSaml2Error().getErrorCode())
+				.isEqualTo(Saml2ErrorCodes.INVALID_RESPONSE));
+		assertThat(this.authentications).hasValue(1);
+	}
+
+	@Test
+	void authenticateWhenWindowElapsedThenAccepts() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ZERO, 10);
+		Saml2AuthenticationToken token = token("response", "assertion", null);
+
+		provider.authenticate(token);
+		provider.authenticate(token);
+
+		assertThat(this.authentications).hasValue(2);
+	}
+
+	@Test
+	void authenticateWhenNotOnOrAfterLaterThanWindowThenRemembersUntilNotOnOrAfter() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ZERO, 10);
+		Saml2AuthenticationToken token = token("response", "assertion", Instant.now().plus(Duration.ofHours(1)));
+
+		provider.authenticate(token);
+
+		assertThatExceptionOfType(Saml2AuthenticationException.class).isThrownBy(() -> provider.authenticate(token));
+		assertThat(this.authentications).hasValue(1);
+	}
+
+	@Test
+	void authenticateWhenFullThenRejectsWithoutEvicting() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ofMinutes(5), 2);
+		Saml2AuthenticationToken one = token("one", "assertion-one", null);
+		provider.authenticate(one);
+
+		assertThatExceptionOfType(Saml2AuthenticationException.class)
+			.isThrownBy(() -> provider.authenticate(token("two", "assertion-two", null)))
+			.satisfies((ex) -> assertThat(ex.getSaml2Error().getErrorCode())
+				.isEqualTo(Saml2ErrorCodes.INTERNAL_VALIDATION_ERROR));
+		assertThatExceptionOfType(Saml2AuthenticationException.class).isThrownBy(() -> provider.authenticate(one))
+			.satisfies((ex) -> assertThat(ex.getSaml2Error().getErrorCode())
+				.isEqualTo(Saml2ErrorCodes.INVALID_RESPONSE));
+		assertThat(this.authentications).hasValue(1);
+	}
+
+	@Test
+	void authenticateWhenEncryptedAssertionReplayedUnderNewResponseIdThenRejectsBeforeDelegating() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ofMinutes(5), 10);
+		provider.authenticate(encryptedToken("one", "a2V5LW9uZQ==", "Y2lwaGVydGV4dA=="));
+
+		// the same ciphertext, encoded differently, under another key transport
+		Saml2AuthenticationToken replayed = encryptedToken("two", "a2V5LXR3bw==", "Y2lwaGVy\ndGV4dA==");
+
+		assertThatExceptionOfType(Saml2AuthenticationException.class).isThrownBy(() -> provider.authenticate(replayed))
+			.satisfies((ex) -> assertThat(ex.getSaml2Error().getErrorCode())
+				.isEqualTo(Saml2ErrorCodes.INVALID_RESPONSE));
+		assertThat(this.authentications).hasValue(1);
+	}
+
+	@Test
+	void authenticateWhenDifferentEncryptedAssertionThenAccepts() {
+		ReplayRejectingAuthenticationProvider provider = provider(Duration.ofMinutes(5), 10);
+		provider.authenticate(encryptedToken("one", "a2V5", "Y2lwaGVydGV4dA=="));
+
+		provider.authenticate(encryptedToken("two", "a2V5", "b3RoZXI="));
+
+		assertThat(this.authentications).hasValue(2);
+	}
+
+	private ReplayRejectingAuthenticationProvider provider(Duration window, long maximumSize) {
+		return new ReplayRejectingAuthenticationProvider(this.delegate, window, Duration.ZERO, maximumSize);
+	}
+
+	private static Saml2AuthenticationToken token(String responseId, String assertionId, Instant notOnOrAfter) {
+		String conditions = (notOnOrAfter != null) ? "<saml:Conditions NotOnOrAfter=\"" + notOnOrAfter + "\"/>" : "";
+		// @formatter:off
+		String response = "<samlp:Response xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" "
+				+ "ID=\"" + responseId + "\">"
+				+ "<saml:Assertion xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\" ID=\"" + assertionId + "\">"
+				+ conditions
+				+ "</saml:Assertion>"
+				+ "</samlp:Response>";
+		// @formatter:on
+		return new Saml2AuthenticationToken(registration(), response);
+	}
+
+	private static Saml2AuthenticationToken encryptedToken(String responseId, String encryptedKey,
+			String ciphertext) {
+		// @formatter:off
+		String response = "<samlp:Response xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" "
+				+ "ID=\"" + responseId + "\">"
+				+ "<saml:EncryptedAssertion xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">"
+				+ "<xenc:EncryptedData xmlns:xenc=\"http://www.w3.org/2001/04/xmlenc#\">"
+				+ "<ds:KeyInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">"
+				+ "<xenc:EncryptedKey><xenc:CipherData><xenc:CipherValue>" + encryptedKey + "</xenc:CipherValue>"
+				+ "</xenc:CipherData></xenc:EncryptedKey>"
+				+ "</ds:KeyInfo>"
+				+ "<xenc:CipherData><xenc:CipherValue>" + ciphertext + "</xenc:CipherValue></xenc:CipherData>"
+				+ "</xenc:EncryptedData>"
+				+ "</saml:EncryptedAssertion>"
+				+ "</samlp:Response>";
+		// @formatter:on
+		return new Saml2AuthenticationToken(registration(), response);
+	}
+
+	private static RelyingPartyRegistration registration() {
+		// @formatter:off
+		return RelyingPartyRegistration.withRegistrationId("one")
+			.assertingPartyMetadata((party) -> party
+				.entityId("https://ap.example.org")
+				.singleSignOnServiceLocation("https://ap.example.org/sso")
+			)
+			.build();
+		// @formatter:on
+	}
+
+}
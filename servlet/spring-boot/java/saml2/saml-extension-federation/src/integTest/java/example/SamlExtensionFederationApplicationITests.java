@@ -34,6 +34,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -47,6 +48,9 @@ class SamlExtensionFederationApplicationITests {
 	@Autowired
 	WebClient webClient;
 
+	@Autowired
+	IndexedRelyingPartyRegistrationRepository registrations;
+
 	@BeforeEach
 	void setup() {
 		this.webClient.getCookieManager().clearCookies();
@@ -72,6 +76,17 @@ class SamlExtensionFederationApplicationITests {
 		assertThat(urls).contains("/login?logout");
 	}
 
+	@Test
+	void findByRegistrationIdWhenIndexedThenBuildsRegistrationOnce() {
+		assertThat(this.registrations.size()).isEqualTo(1);
+		String registrationId = this.registrations.iterator().next().getRegistrationId();
+		RelyingPartyRegistration registration = this.registrations.findByRegistrationId(registrationId);
+		assertThat(registration.getAssertingPartyMetadata().getSingleSignOnServiceLocation()).isNotNull();
+		assertThat(this.registrations.findByRegistrationId(registrationId)).isSameAs(registration);
+		assertThat(this.registrations.iterator().next()).isSameAs(registration);
+		assertThat(this.registrations.findByRegistrationId("unknown")).isNull();
+	}
+
 	private void performLogin() throws Exception {
 		HtmlPage login = this.webClient.getPage("http://localhost:" + this.port);
 		login.getAnchors().get(0).click();
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.core.io.Resource;
+import org.springframework.security.saml2.provider.service.registration.IterableRelyingPartyRegistrationRepository;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrations;
+
+/**
+ * A {@link IterableRelyingPartyRegistrationRepository} over aggregate metadata, like that
+ * of a national federation, that only keeps the registrations in use in memory.
+ *
+ * <p>
+ * When created, the metadata is streamed through once with StAX, and each asserting
+ * party's {@code EntityDescriptor} is copied to a local file as a document of its own,
+ * declaring the namespaces it inherited from the enclosing {@code EntitiesDescriptor}s.
+ * Only where each one starts and ends in that file is kept in memory. A registration is
+ * built from its {@code EntityDescriptor} alone the first time it is looked up, and the
+ * most recently used ones are kept for later lookups.
+ *
+ * <p>
+ * Iterating the repository builds the registration of every asserting party that is not
+ * already in memory, without keeping it, so that it does not push the ones in use out.
+ * This still parses the whole federation, so prefer looking registrations up by id. In
+ * particular, the default login page and a metadata endpoint without a
+ * {@code registrationId} both iterate the repository; a federation of any size should
+ * rather use a discovery service as its login page and a metadata endpoint scoped to one
+ * {@code registrationId}.
+ *
+ * <p>
+ * Entities without an {@code IDPSSODescriptor} are not indexed, and the aggregate's
+ * signature is not verified, as is the case for
+ * {@link RelyingPartyRegistrations#collectionFromMetadataLocation(String)}.
+ */
+final class IndexedRelyingPartyRegistrationRepository implements IterableRelyingPartyRegistrationRepository {
+
+	private static final String METADATA_NS = "urn:oasis:names:tc:SAML:2.0:metadata";
+
+	private final RelyingPartyMetadata metadata;
+
+	private final Path file;
+
+	private final Map<String, Entry> entries;
+
+	private final Cache<String, RelyingPartyRegistration> registrations;
+
+	/**
+	 * Indexes the given aggregate metadata.
+	 * @param metadata the relying party's configuration, applied to each registration
+	 * @param location the aggregate metadata
+	 * @param maximumSize how many registrations to keep in memory
+	 */
+	IndexedRelyingPartyRegistrationRepository(RelyingPartyMetadata metadata, Resource location, int maximumSize) {
+		this.metadata = metadata;
+		this.registrations = Caffeine.newBuilder().maximumSize(maximumSize).build();
+		try {
+			this.file = Files.createTempFile("metadata", ".xml");
+			this.file.toFile().deleteOnExit();
+			try (InputStream in = location.getInputStream();
+					OutputStream out = new BufferedOutputStream(Files.newOutputStream(this.file))) {
+				Indexer indexer = new Indexer(out);
+				indexer.index(in);
+				this.entries = Collections.unmodifiableMap(indexer.entries);
+			}
+		}
+		catch (IOException | XMLStreamException ex) {
+			throw new IllegalStateException("Failed to index the metadata at " + location, ex);
+		}
+	}
+
+	@Override
+	public RelyingPartyRegistration findByRegistrationId(String registrationId) {
+		Entry entry = this.entries.get(registrationId);
+		if (entry == null) {
+			return null;
+		}
+		return this.registrations.get(registrationId, (entityId) -> registration(entry));
+	}
+
+	@Override
+	public Iterator<RelyingPartyRegistration> iterator() {
+		Iterator<Map.Entry<String, Entry>> entries = this.entries.entrySet().iterator();
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public RelyingPartyRegistration next() {
+				Map.Entry<String, Entry> entry = entries.next();
+				RelyingPartyRegistration registration = IndexedRelyingPartyRegistrationRepository.this.registrations
+					.getIfPresent(entry.getKey());
+				return (registration != null) ? registration : registration(entry.getValue());
+			}
+		};
+	}
+
+	/**
+	 * How many asserting parties were indexed.
+	 * @return the number of asserting parties
+	 */
+	int size() {
+		return this.entries.size();
+	}
+
+	private RelyingPartyRegistration registration(Entry entry) {
+		byte[] entityDescriptor = new byte[entry.length()];
+		try (RandomAccessFile file = new RandomAccessFile(this.file.toFile(), "r")) {
+			file.seek(entry.offset());
+			file.readFully(entityDescriptor);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to read the metadata from " + this.file, ex);
+		}
+		RelyingPartyRegistration.Builder builder = RelyingPartyRegistrations
+			.collectionFromMetadata(new ByteArrayInputStream(entityDescriptor))
+			.iterator()
+			.next();
+		return this.metadata.apply(builder);
+	}
+
+	/**
+	 * Where an {@code EntityDescriptor} is in the local file.
+	 */
+	private record Entry(long offset, int length) {
+
+	}
+
+	/**
+	 * Reads a metadata document with StAX, and writes each {@code EntityDescriptor} that
+	 * has an {@code IDPSSODescriptor} to the given output as a standalone document,
+	 * remembering where it was written.
+	 */
+	private static final class Indexer {
+
+		private static final XMLInputFactory inputFactory = createInputFactory();
+
+		private static final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+		private static final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+
+		private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+		// the namespaces declared by each enclosing element, innermost first
+		private final Deque<List<Namespace>> scopes = new ArrayDeque<>();
+
+		private final OutputStream out;
+
+		private long offset;
+
+		Indexer(OutputStream out) {
+			this.out = out;
+		}
+
+		void index(InputStream in) throws IOException, XMLStreamException {
+			XMLEventReader reader = inputFactory.createXMLEventReader(in);
+			try {
+				while (reader.hasNext()) {
+					XMLEvent event = reader.nextEvent();
+					if (event.isStartElement()) {
+						StartElement start = event.asStartElement();
+						if (isMetadata(start, "EntityDescriptor")) {
+							entity(reader, start);
+						}
+						else {
+							this.scopes.push(namespaces(start));
+						}
+					}
+					else if (event.isEndElement()) {
+						this.scopes.poll();
+					}
+				}
+			}
+			finally {
+				reader.close();
+			}
+		}
+
+		private void entity(XMLEventReader reader, StartElement start) throws IOException, XMLStreamException {
+			List<XMLEvent> events = new ArrayList<>();
+			events.add(inheritNamespaces(start));
+			boolean identityProvider = false;
+			int depth = 1;
+			while (depth > 0) {
+				XMLEvent event = reader.nextEvent();
+				if (event.isStartElement()) {
+					depth++;
+					identityProvider |= isMetadata(event.asStartElement(), "IDPSSODescriptor");
+				}
+				else if (event.isEndElement()) {
+					depth--;
+				}
+				events.add(event);
+			}
+			Attribute entityId = start.getAttributeByName(new QName("entityID"));
+			if (!identityProvider || entityId == null || this.entries.containsKey(entityId.getValue())) {
+				return;
+			}
+			byte[] entityDescriptor = write(events);
+			this.out.write(entityDescriptor);
+			this.entries.put(entityId.getValue(), new Entry(this.offset, entityDescriptor.length));
+			this.offset += entityDescriptor.length;
+		}
+
+		/**
+		 * Declares on the {@code EntityDescriptor} the namespaces in scope from its
+		 * enclosing elements, where the innermost declaration of a prefix wins.
+		 */
+		private StartElement inheritNamespaces(StartElement start) {
+			Map<String, Namespace> namespaces = new LinkedHashMap<>();
+			for (Namespace namespace : namespaces(start)) {
+				namespaces.put(namespace.getPrefix(), namespace);
+			}
+			for (List<Namespace> scope : this.scopes) {
+				for (Namespace namespace : scope) {
+					namespaces.putIfAbsent(namespace.getPrefix(), namespace);
+				}
+			}
+			QName name = start.getName();
+			return eventFactory.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(),
+					start.getAttributes(), namespaces.values().iterator());
+		}
+
+		private static byte[] write(List<XMLEvent> events) throws XMLStreamException {
+			ByteArrayOutputStream entityDescriptor = new ByteArrayOutputStream();
+			XMLEventWriter writer = outputFactory.createXMLEventWriter(entityDescriptor, "UTF-8");
+			writer.add(eventFactory.createStartDocument("UTF-8", "1.0"));
+			for (XMLEvent event : events) {
+				writer.add(event);
+			}
+			writer.add(eventFactory.createEndDocument());
+			writer.close();
+			return entityDescriptor.toByteArray();
+		}
+
+		private static List<Namespace> namespaces(StartElement start) {
+			List<Namespace> namespaces = new ArrayList<>();
+			start.getNamespaces().forEachRemaining(namespaces::add);
+			return namespaces;
+		}
+
+		private static boolean isMetadata(StartElement start, String localName) {
+			return METADATA_NS.equals(start.getName().getNamespaceURI())
+					&& localName.equals(start.getName().getLocalPart());
+		}
+
+		private static XMLInputFactory createInputFactory() {
+			XMLInputFactory factory = XMLInputFactory.newFactory();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+			return factory;
+		}
+
+	}
+
+}
@@ -16,17 +16,12 @@
 
 package example;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.saml2.provider.service.registration.InMemoryRelyingPartyRegistrationRepository;
-import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
-import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrationRepository;
-import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistrations;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -50,13 +45,9 @@ public class SecurityConfiguration {
 	}
 
 	@Bean
-	RelyingPartyRegistrationRepository registrations(RelyingPartyMetadata rp,
-			@Value("${saml2.ap.metadata}") String ap) {
-		List<RelyingPartyRegistration> registrations = RelyingPartyRegistrations.collectionFromMetadataLocation(ap)
-			.stream()
-			.map(rp::apply)
-			.toList();
-		return new InMemoryRelyingPartyRegistrationRepository(registrations);
+	IndexedRelyingPartyRegistrationRepository registrations(RelyingPartyMetadata rp,
+			@Value("${saml2.ap.metadata}") Resource ap, @Value("${saml2.ap.cache.maximum-size:1000}") int maximumSize) {
+		return new IndexedRelyingPartyRegistrationRepository(rp, ap, maximumSize);
 	}
 
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.saml2.provider.service.registration.RelyingPartyRegistration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link IndexedRelyingPartyRegistrationRepository}.
+ */
+class IndexedRelyingPartyRegistrationRepositoryTests {
+
+	private static final String ONE = "https://one.example.org";
+
+	private static final String MULTI_BYTE = "https://idp.example.org/ünïcødé/日本";
+
+	private static final String COMMENTED = "https://commented.example.org";
+
+	private static final String SERVICE_PROVIDER = "https://sp.example.org";
+
+	private static final String SELF_CLOSING = "https://self-closing.example.org";
+
+	private final RelyingPartyMetadata metadata = new RelyingPartyMetadata();
+
+	private String certificate;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		this.metadata.setCertificate("classpath:credentials/rp-certificate.crt");
+		this.metadata.setKey("classpath:credentials/rp-private.key");
+		try (InputStream in = new ClassPathResource("credentials/rp-certificate.crt").getInputStream()) {
+			this.certificate = new String(in.readAllBytes(), StandardCharsets.US_ASCII)
+				.replaceAll("-----[A-Z ]+-----|\\s", "");
+		}
+	}
+
+	@Test
+	void constructorWhenAggregateThenIndexesOnlyIdentityProviders() {
+		IndexedRelyingPartyRegistrationRepository registrations = repository(10);
+
+		assertThat(registrations.size()).isEqualTo(2);
+		assertThat(registrations.findByRegistrationId(COMMENTED)).isNull();
+		assertThat(registrations.findByRegistrationId(SERVICE_PROVIDER)).isNull();
+		assertThat(registrations.findByRegistrationId(SELF_CLOSING)).isNull();
+	}
+
+	@Test
+	void findByRegistrationIdWhenPrefixedNamespacesThenBuildsRegistration() {
+		IndexedRelyingPartyRegistrationRepository registrations = repository(10);
+
+		RelyingPartyRegistration registration = registrations.findByRegistrationId(ONE);
+
+		assertThat(registration.getAssertingPartyMetadata().getEntityId()).isEqualTo(ONE);
+		assertThat(registration.getAssertingPartyMetadata().getSingleSignOnServiceLocation())
+			.isEqualTo(ONE + "/sso");
+		assertThat(registrations.findByRegistrationId(ONE)).isSameAs(registration);
+	}
+
+	@Test
+	void findByRegistrationIdWhenNestedAndRedeclaredNamespacesThenBuildsRegistration() {
+		IndexedRelyingPartyRegistrationRepository registrations = repository(10);
+
+		RelyingPartyRegistration registration = registrations.findByRegistrationId(MULTI_BYTE);
+
+		assertThat(registration.getAssertingPartyMetadata().getEntityId()).isEqualTo(MULTI_BYTE);
+		assertThat(registration.getAssertingPartyMetadata().getSingleSignOnServiceLocation())
+			.isEqualTo("https://idp.example.org/sso");
+	}
+
+	@Test
+	void iteratorWhenRegistrationsInUseThenDoesNotEvictThem() {
+		IndexedRelyingPartyRegistrationRepository registrations = repository(1);
+		RelyingPartyRegistration one = registrations.findByRegistrationId(ONE);
+
+		List<String> registrationIds = new ArrayList<>();
+		for (RelyingPartyRegistration registration : registrations) {
+			registrationIds.add(registration.getRegistrationId());
+		}
+
+		assertThat(registrationIds).containsExactly(ONE, MULTI_BYTE);
+		assertThat(registrations.findByRegistrationId(ONE)).isSameAs(one);
+	}
+
+	private IndexedRelyingPartyRegistrationRepository repository(int maximumSize) {
+		// @formatter:off
+		String aggregate = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+				+ "<md:EntitiesDescriptor xmlns:md=\"urn:oasis:names:tc:SAML:2.0:metadata\" "
+				+ "xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\">"
+				+ "<!-- <md:EntityDescriptor entityID=\"" + COMMENTED + "\"><md:IDPSSODescriptor>"
+				+ "</md:IDPSSODescriptor></md:EntityDescriptor> -->"
+				+ "<md:EntityDescriptor entityID=\"" + ONE + "\">"
+				+ "<md:IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ keyDescriptor("md:", "ds:")
+				+ "<md:SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"" + ONE + "/sso\"/>"
+				+ "</md:IDPSSODescriptor>"
+				+ "</md:EntityDescriptor>"
+				+ "<md:EntityDescriptor entityID=\"" + SERVICE_PROVIDER + "\">"
+				+ "<md:SPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ "<md:AssertionConsumerService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-POST\" "
+				+ "Location=\"" + SERVICE_PROVIDER + "/acs\" index=\"0\"/>"
+				+ "</md:SPSSODescriptor>"
+				+ "</md:EntityDescriptor>"
+				+ "<md:EntityDescriptor entityID=\"" + SELF_CLOSING + "\"/>"
+				// the nested aggregate binds the metadata namespace as the default one, and md to another
+				+ "<EntitiesDescriptor xmlns=\"urn:oasis:names:tc:SAML:2.0:metadata\" xmlns:md=\"urn:example:other\">"
+				+ "<EntityDescriptor entityID=\"" + MULTI_BYTE + "\">"
+				+ "<Extensions><md:Note>&lt;EntityDescriptor&gt;</md:Note></Extensions>"
+				+ "<IDPSSODescriptor protocolSupportEnumeration=\"urn:oasis:names:tc:SAML:2.0:protocol\">"
+				+ keyDescriptor("", "ds:")
+				+ "<SingleSignOnService Binding=\"urn:oasis:names:tc:SAML:2.0:bindings:HTTP-Redirect\" "
+				+ "Location=\"https://idp.example.org/sso\"/>"
+				+ "</IDPSSODescriptor>"
+				+ "</EntityDescriptor>"
+				+ "</EntitiesDescriptor>"
+				+ "</md:EntitiesDescriptor>";
+		// @formatter:on
+		ByteArrayResource location = new ByteArrayResource(aggregate.getBytes(StandardCharsets.UTF_8));
+		return new IndexedRelyingPartyRegistrationRepository(this.metadata, location, maximumSize);
+	}
+
+	private String keyDescriptor(String md, String ds) {
+		// @formatter:off
+		return "<" + md + "KeyDescriptor use=\"signing\">"
+				+ "<" + ds + "KeyInfo><" + ds + "X509Data><" + ds + "X509Certificate>"
+				+ this.certificate
+				+ "</" + ds + "X509Certificate></" + ds + "X509Data></" + ds + "KeyInfo>"
+				+ "</" + md + "KeyDescriptor>";
+		// @formatter:on
+	}
+
+}
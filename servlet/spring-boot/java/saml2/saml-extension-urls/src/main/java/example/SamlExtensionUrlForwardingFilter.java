@@ -17,24 +17,32 @@
 package example;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
-import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
-import org.springframework.security.web.util.matcher.OrRequestMatcher;
-import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.UrlPathHelper;
 
+/**
+ * Routes the SAML Extension URLs to the Spring Security ones.
+ *
+ * <p>
+ * Since this filter sees every request, a request is routed with a single lookup of its
+ * path, and requests whose path does not start with {@code /saml/} are passed on without
+ * allocating. In {@link Mode#FORWARD} mode, a matching request is forwarded to the
+ * Spring Security URL. In {@link Mode#REWRITE} mode, it is instead passed on as though
+ * it had been made to the Spring Security URL, saving the forward.
+ */
 @Component
 @Order(-101) // To run before FilterChainProxy
 public class SamlExtensionUrlForwardingFilter extends OncePerRequestFilter {
@@ -47,26 +55,89 @@ public class SamlExtensionUrlForwardingFilter extends OncePerRequestFilter {
 			"/saml/metadata", "/saml2/metadata");
 	// @formatter:on
 
-	private final RequestMatcher matcher = createRequestMatcher();
+	private static final String PREFIX = "/saml/";
 
-	private RequestMatcher createRequestMatcher() {
-		Set<String> urls = urlMapping.keySet();
-		List<RequestMatcher> matchers = new LinkedList<>();
-		urls.forEach((url) -> matchers.add(PathPatternRequestMatcher.pathPattern(url)));
-		return new OrRequestMatcher(matchers);
+	private final Mode mode;
+
+	public SamlExtensionUrlForwardingFilter(@Value("${saml.url-forwarding.mode:forward}") Mode mode) {
+		this.mode = mode;
 	}
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
-		boolean match = this.matcher.matches(request);
-		if (!match) {
+		String forwardUrl = forwardUrl(request);
+		if (forwardUrl == null) {
 			filterChain.doFilter(request, response);
 			return;
 		}
-		String forwardUrl = urlMapping.get(request.getRequestURI());
+		if (this.mode == Mode.REWRITE) {
+			ServletRequestPathUtils.clearParsedRequestPath(request);
+			request.removeAttribute(UrlPathHelper.PATH_ATTRIBUTE);
+			filterChain.doFilter(new RewrittenRequest(request, forwardUrl), response);
+			return;
+		}
 		RequestDispatcher dispatcher = request.getRequestDispatcher(forwardUrl);
 		dispatcher.forward(request, response);
 	}
 
+	private static String forwardUrl(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		int contextPath = request.getContextPath().length();
+		if (!uri.startsWith(PREFIX, contextPath)) {
+			return null;
+		}
+		return urlMapping.get((contextPath != 0) ? uri.substring(contextPath) : uri);
+	}
+
+	/**
+	 * How a request to a SAML Extension URL is routed.
+	 */
+	public enum Mode {
+
+		/**
+		 * Forward the request to the Spring Security URL.
+		 */
+		FORWARD,
+
+		/**
+		 * Pass the request on with its path changed to the Spring Security URL.
+		 */
+		REWRITE
+
+	}
+
+	private static final class RewrittenRequest extends HttpServletRequestWrapper {
+
+		private final String path;
+
+		RewrittenRequest(HttpServletRequest request, String path) {
+			super(request);
+			this.path = path;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return getContextPath() + this.path;
+		}
+
+		@Override
+		public StringBuffer getRequestURL() {
+			StringBuffer url = super.getRequestURL();
+			url.setLength(url.length() - super.getRequestURI().length());
+			return url.append(getRequestURI());
+		}
+
+		@Override
+		public String getServletPath() {
+			return this.path;
+		}
+
+		@Override
+		public String getPathInfo() {
+			return null;
+		}
+
+	}
+
 }
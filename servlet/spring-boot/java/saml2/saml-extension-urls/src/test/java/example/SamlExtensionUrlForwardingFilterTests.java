@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package example;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SamlExtensionUrlForwardingFilter}.
+ */
+class SamlExtensionUrlForwardingFilterTests {
+
+	private final SamlExtensionUrlForwardingFilter rewriting = new SamlExtensionUrlForwardingFilter(
+			SamlExtensionUrlForwardingFilter.Mode.REWRITE);
+
+	@Test
+	void doFilterWhenForwardThenForwardsToSpringSecurityUrl() throws Exception {
+		SamlExtensionUrlForwardingFilter filter = new SamlExtensionUrlForwardingFilter(
+				SamlExtensionUrlForwardingFilter.Mode.FORWARD);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/saml/metadata"), response, (req, res) -> {
+		});
+		assertThat(response.getForwardedUrl()).isEqualTo("/saml2/metadata");
+	}
+
+	@Test
+	void doFilterWhenRewriteThenPassesOnSpringSecurityUrl() throws Exception {
+		AtomicReference<ServletRequest> passedOn = new AtomicReference<>();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/saml/metadata");
+		request.setContextPath("/app");
+		this.rewriting.doFilter(request, new MockHttpServletResponse(), (req, res) -> passedOn.set(req));
+		HttpServletRequest rewritten = (HttpServletRequest) passedOn.get();
+		assertThat(rewritten.getRequestURI()).isEqualTo("/app/saml2/metadata");
+		assertThat(rewritten.getServletPath()).isEqualTo("/saml2/metadata");
+		assertThat(rewritten.getRequestURL().toString()).isEqualTo("http://localhost/app/saml2/metadata");
+	}
+
+	@Test
+	void doFilterWhenContextPathIsSamlThenMatchesAfterContextPath() throws Exception {
+		AtomicReference<ServletRequest> passedOn = new AtomicReference<>();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/saml/saml/metadata");
+		request.setContextPath("/saml");
+		this.rewriting.doFilter(request, new MockHttpServletResponse(), (req, res) -> passedOn.set(req));
+		HttpServletRequest rewritten = (HttpServletRequest) passedOn.get();
+		assertThat(rewritten.getRequestURI()).isEqualTo("/saml/saml2/metadata");
+		assertThat(rewritten.getServletPath()).isEqualTo("/saml2/metadata");
+	}
+
+	@Test
+	void doFilterWhenContextPathIsSamlAndNotSamlExtensionUrlThenPassesOnSameRequest() throws Exception {
+		AtomicReference<ServletRequest> passedOn = new AtomicReference<>();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/saml/other");
+		request.setContextPath("/saml");
+		this.rewriting.doFilter(request, new MockHttpServletResponse(), (req, res) -> passedOn.set(req));
+		assertThat(passedOn.get()).isSameAs(request);
+	}
+
+	@Test
+	void doFilterWhenNotSamlExtensionUrlThenPassesOnSameRequest() throws Exception {
+		AtomicReference<ServletRequest> passedOn = new AtomicReference<>();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/other/saml/metadata");
+		this.rewriting.doFilter(request, new MockHttpServletResponse(), (req, res) -> passedOn.set(req));
+		assertThat(passedOn.get()).isSameAs(request);
+	}
+
+}
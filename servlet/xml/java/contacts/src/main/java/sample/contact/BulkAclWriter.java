@@ -0,0 +1,293 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.contact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.util.Assert;
+
+/**
+ * Creates ACLs for many object identities at once, and grants entries on many existing
+ * ACLs at once.
+ *
+ * <p>
+ * Where {@link org.springframework.security.acls.jdbc.JdbcMutableAclService} issues
+ * several statements per ACL and per entry, this writes the {@code acl_sid},
+ * {@code acl_class}, {@code acl_object_identity} and {@code acl_entry} rows using JDBC
+ * batch statements, a chunk of ACLs at a time. The caller is responsible for running it
+ * in a transaction.
+ *
+ * <p>
+ * The ids of {@code acl_class} and {@code acl_sid} rows are remembered once resolved, so
+ * separate chunks can be written concurrently. Use {@link #registerSids(Collection)} up
+ * front so that concurrent writers never race to insert the same sid.
+ *
+ * <p>
+ * {@link #createAcls(List)} bypasses the {@link AclCache}, so it is only meant for object
+ * identities that do not have an ACL yet. {@link #appendEntries(Map)} adds entries to
+ * ACLs that already exist, and evicts them from the {@link AclCache} when one is set.
+ */
+public class BulkAclWriter {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final NamedParameterJdbcTemplate namedJdbc;
+
+	private final Map<String, Long> classIds = new ConcurrentHashMap<>();
+
+	private final Map<Sid, Long> sidIds = new ConcurrentHashMap<>();
+
+	private AclCache aclCache;
+
+	public BulkAclWriter(DataSource dataSource) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.namedJdbc = new NamedParameterJdbcTemplate(this.jdbc);
+	}
+
+	/**
+	 * Sets the cache to evict the ACLs changed by {@link #appendEntries(Map)} from.
+	 * @param aclCache the cache the ACLs are read through
+	 */
+	public void setAclCache(AclCache aclCache) {
+		this.aclCache = aclCache;
+	}
+
+	public void createAcls(List<AclDefinition> acls) {
+		if (acls.isEmpty()) {
+			return;
+		}
+		for (AclDefinition acl : acls) {
+			this.classIds.computeIfAbsent(acl.objectIdentity().getType(), this::classId);
+			this.sidIds.computeIfAbsent(acl.owner(), this::sidId);
+			for (AceDefinition ace : acl.entries()) {
+				this.sidIds.computeIfAbsent(ace.sid(), this::sidId);
+			}
+		}
+		for (int from = 0; from < acls.size(); from += CHUNK_SIZE) {
+			List<AclDefinition> chunk = acls.subList(from, Math.min(from + CHUNK_SIZE, acls.size()));
+			insertObjectIdentities(chunk);
+			List<ObjectIdentity> objectIdentities = new ArrayList<>(chunk.size());
+			for (AclDefinition acl : chunk) {
+				objectIdentities.add(acl.objectIdentity());
+			}
+			Map<ObjectIdentity, Long> objectIdentityIds = objectIdentityIds(objectIdentities);
+			insertEntries(chunk, objectIdentityIds);
+		}
+	}
+
+	/**
+	 * Adds entries after the existing entries of each of the given ACLs, like
+	 * {@link org.springframework.security.acls.model.MutableAcl#insertAce} at the end of
+	 * each ACL followed by
+	 * {@link org.springframework.security.acls.model.MutableAclService#updateAcl} would,
+	 * but with one batch statement per chunk of ACLs.
+	 * @param entries the entries to add, in order, by the object identity of their ACL
+	 * @throws NotFoundException if any of the object identities has no ACL
+	 */
+	public void appendEntries(Map<ObjectIdentity, List<AceDefinition>> entries) {
+		if (entries.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<ObjectIdentity, List<AceDefinition>> acl : entries.entrySet()) {
+			this.classIds.computeIfAbsent(acl.getKey().getType(), this::classId);
+			for (AceDefinition ace : acl.getValue()) {
+				this.sidIds.computeIfAbsent(ace.sid(), this::sidId);
+			}
+		}
+		List<ObjectIdentity> objectIdentities = new ArrayList<>(entries.keySet());
+		for (int from = 0; from < objectIdentities.size(); from += CHUNK_SIZE) {
+			List<ObjectIdentity> chunk = objectIdentities.subList(from,
+					Math.min(from + CHUNK_SIZE, objectIdentities.size()));
+			Map<ObjectIdentity, Long> objectIdentityIds = objectIdentityIds(chunk);
+			for (ObjectIdentity objectIdentity : chunk) {
+				if (objectIdentityIds.get(objectIdentity) == null) {
+					throw new NotFoundException(
+							"Unable to find ACL information for object identity '" + objectIdentity + "'");
+				}
+			}
+			Map<Long, Integer> nextOrders = nextOrders(objectIdentityIds.values());
+			List<Object[]> rows = new ArrayList<>();
+			for (ObjectIdentity objectIdentity : chunk) {
+				Long objectIdentityId = objectIdentityIds.get(objectIdentity);
+				int order = nextOrders.getOrDefault(objectIdentityId, 0);
+				for (AceDefinition ace : entries.get(objectIdentity)) {
+					rows.add(entryRow(objectIdentityId, order++, ace));
+				}
+			}
+			insertEntries(rows);
+		}
+		if (this.aclCache != null) {
+			for (ObjectIdentity objectIdentity : objectIdentities) {
+				this.aclCache.evictFromCache(objectIdentity);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the ids of the given sids, creating {@code acl_sid} rows as needed.
+	 * @param sids the sids that later calls to {@link #createAcls(List)} will refer to
+	 */
+	public void registerSids(Collection<? extends Sid> sids) {
+		for (Sid sid : sids) {
+			this.sidIds.computeIfAbsent(sid, this::sidId);
+		}
+	}
+
+	private Long classId(String type) {
+		List<Long> ids = this.jdbc.queryForList("select id from acl_class where class = ?", Long.class, type);
+		if (ids.isEmpty()) {
+			this.jdbc.update("insert into acl_class (class) values (?)", type);
+			return this.jdbc.queryForObject("select id from acl_class where class = ?", Long.class, type);
+		}
+		return ids.get(0);
+	}
+
+	private Long sidId(Sid sid) {
+		boolean principal = isPrincipal(sid);
+		String name = name(sid);
+		String select = "select id from acl_sid where principal = ? and sid = ?";
+		List<Long> ids = this.jdbc.queryForList(select, Long.class, principal, name);
+		if (ids.isEmpty()) {
+			this.jdbc.update("insert into acl_sid (principal, sid) values (?, ?)", principal, name);
+			return this.jdbc.queryForObject(select, Long.class, principal, name);
+		}
+		return ids.get(0);
+	}
+
+	private void insertObjectIdentities(List<AclDefinition> chunk) {
+		String sql = "insert into acl_object_identity "
+				+ "(object_id_class, object_id_identity, owner_sid, entries_inheriting) values (?, ?, ?, ?)";
+		this.jdbc.batchUpdate(sql, chunk, chunk.size(), (ps, acl) -> {
+			ps.setLong(1, this.classIds.get(acl.objectIdentity().getType()));
+			ps.setString(2, acl.objectIdentity().getIdentifier().toString());
+			ps.setLong(3, this.sidIds.get(acl.owner()));
+			ps.setBoolean(4, true);
+		});
+	}
+
+	private Map<ObjectIdentity, Long> objectIdentityIds(List<ObjectIdentity> chunk) {
+		Map<String, List<String>> identifiersByType = new LinkedHashMap<>();
+		for (ObjectIdentity objectIdentity : chunk) {
+			identifiersByType.computeIfAbsent(objectIdentity.getType(), (type) -> new ArrayList<>())
+				.add(objectIdentity.getIdentifier().toString());
+		}
+		Map<String, Long> idsByKey = new HashMap<>();
+		String sql = "select id, object_id_identity from acl_object_identity "
+				+ "where object_id_class = :classId and object_id_identity in (:identifiers)";
+		identifiersByType.forEach((type, identifiers) -> {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("classId", this.classIds.get(type))
+				.addValue("identifiers", identifiers);
+			this.namedJdbc.query(sql, parameters, (rs) -> {
+				idsByKey.put(type + ":" + rs.getString("object_id_identity"), rs.getLong("id"));
+			});
+		});
+		Map<ObjectIdentity, Long> objectIdentityIds = new HashMap<>();
+		for (ObjectIdentity objectIdentity : chunk) {
+			String key = objectIdentity.getType() + ":" + objectIdentity.getIdentifier();
+			objectIdentityIds.put(objectIdentity, idsByKey.get(key));
+		}
+		return objectIdentityIds;
+	}
+
+	/**
+	 * Finds the order the next entry of each of the ACLs takes, which is absent for ACLs
+	 * without entries.
+	 */
+	private Map<Long, Integer> nextOrders(Collection<Long> objectIdentityIds) {
+		Map<Long, Integer> nextOrders = new HashMap<>();
+		String sql = "select acl_object_identity, max(ace_order) as last_order from acl_entry "
+				+ "where acl_object_identity in (:ids) group by acl_object_identity";
+		this.namedJdbc.query(sql, new MapSqlParameterSource("ids", objectIdentityIds), (rs) -> {
+			nextOrders.put(rs.getLong("acl_object_identity"), rs.getInt("last_order") + 1);
+		});
+		return nextOrders;
+	}
+
+	private void insertEntries(List<AclDefinition> chunk, Map<ObjectIdentity, Long> objectIdentityIds) {
+		List<Object[]> rows = new ArrayList<>();
+		for (AclDefinition acl : chunk) {
+			Long objectIdentityId = objectIdentityIds.get(acl.objectIdentity());
+			List<AceDefinition> entries = acl.entries();
+			for (int order = 0; order < entries.size(); order++) {
+				rows.add(entryRow(objectIdentityId, order, entries.get(order)));
+			}
+		}
+		insertEntries(rows);
+	}
+
+	private Object[] entryRow(Long objectIdentityId, int order, AceDefinition ace) {
+		return new Object[] { objectIdentityId, order, this.sidIds.get(ace.sid()), ace.permission().getMask(),
+				ace.granting(), false, false };
+	}
+
+	private void insertEntries(List<Object[]> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		String sql = "insert into acl_entry (acl_object_identity, ace_order, sid, mask, granting, audit_success, "
+				+ "audit_failure) values (?, ?, ?, ?, ?, ?, ?)";
+		this.jdbc.batchUpdate(sql, rows);
+	}
+
+	private static boolean isPrincipal(Sid sid) {
+		Assert.isTrue(sid instanceof PrincipalSid || sid instanceof GrantedAuthoritySid,
+				() -> "Unsupported sid implementation: " + sid);
+		return sid instanceof PrincipalSid;
+	}
+
+	private static String name(Sid sid) {
+		if (sid instanceof PrincipalSid principal) {
+			return principal.getPrincipal();
+		}
+		return ((GrantedAuthoritySid) sid).getGrantedAuthority();
+	}
+
+	/**
+	 * An ACL to be created, along with its entries in order.
+	 */
+	public record AclDefinition(ObjectIdentity objectIdentity, Sid owner, List<AceDefinition> entries) {
+
+	}
+
+	/**
+	 * An entry of an {@link AclDefinition}, or one to add to an existing ACL.
+	 */
+	public record AceDefinition(Sid sid, Permission permission, boolean granting) {
+
+	}
+
+}
@@ -35,6 +35,8 @@ public interface ContactDao {
 
 	List<String> findAllRoles();
 
+	Contact findRandom();
+
 	Contact getById(Long id);
 
 	void update(Contact contact);
@@ -19,6 +19,8 @@ package sample.contact;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
 
@@ -30,16 +32,22 @@ import org.springframework.jdbc.core.support.JdbcDaoSupport;
  */
 public class ContactDaoSpring extends JdbcDaoSupport implements ContactDao {
 
+	private static final long ID_RANGE_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	private volatile IdRange idRange;
+
 	public void create(final Contact contact) {
 		getJdbcTemplate().update("insert into contacts values (?, ?, ?)", (ps) -> {
 			ps.setLong(1, contact.getId());
 			ps.setString(2, contact.getName());
 			ps.setString(3, contact.getEmail());
 		});
+		this.idRange = null;
 	}
 
 	public void delete(final Long contactId) {
 		getJdbcTemplate().update("delete from contacts where id = ?", (ps) -> ps.setLong(1, contactId));
+		this.idRange = null;
 	}
 
 	public void update(final Contact contact) {
@@ -64,6 +72,43 @@ public class ContactDaoSpring extends JdbcDaoSupport implements ContactDao {
 				String.class);
 	}
 
+	/**
+	 * Picks a contact at random without reading the whole table. A random id is drawn
+	 * from the cached range of ids, and the first contact at or after it is looked up
+	 * using the primary key index. The range is re-read every 30 seconds, and whenever
+	 * a contact is created or deleted through this DAO.
+	 * @return a random contact, or {@code null} if there are no contacts
+	 */
+	public Contact findRandom() {
+		IdRange range = getIdRange();
+		if (range == null) {
+			return null;
+		}
+		long id = ThreadLocalRandom.current().nextLong(range.min(), range.max() + 1);
+		List<Contact> list = getJdbcTemplate().query(
+				"select id, contact_name, email from contacts where id >= ? order by id limit 1",
+				(rs, rowNum) -> mapContact(rs), id);
+		if (list.isEmpty()) {
+			// The contacts at the top of the range were deleted since it was read
+			list = getJdbcTemplate().query("select id, contact_name, email from contacts order by id limit 1",
+					(rs, rowNum) -> mapContact(rs));
+		}
+		return list.isEmpty() ? null : list.get(0);
+	}
+
+	private IdRange getIdRange() {
+		IdRange range = this.idRange;
+		if (range != null && System.nanoTime() - range.readAt() < ID_RANGE_TTL_NANOS) {
+			return range;
+		}
+		range = getJdbcTemplate().queryForObject("select min(id), max(id) from contacts", (rs, rowNum) -> {
+			long min = rs.getLong(1);
+			return rs.wasNull() ? null : new IdRange(min, rs.getLong(2), System.nanoTime());
+		});
+		this.idRange = range;
+		return range;
+	}
+
 	public Contact getById(Long id) {
 		List<Contact> list = getJdbcTemplate().query(
 				"select id, contact_name, email from contacts where id = ? order by id", (rs, rowNum) -> mapContact(rs),
@@ -86,4 +131,8 @@ public class ContactDaoSpring extends JdbcDaoSupport implements ContactDao {
 		return contact;
 	}
 
+	private record IdRange(long min, long max, long readAt) {
+
+	}
+
 }
@@ -17,7 +17,6 @@
 package sample.contact;
 
 import java.util.List;
-import java.util.Random;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.support.ApplicationObjectSupport;
@@ -49,6 +48,8 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 
 	private MutableAclService mutableAclService;
 
+	private EffectivePermissionEvaluator permissionEvaluator;
+
 	private int counter = 1000;
 
 	public void afterPropertiesSet() {
@@ -69,6 +70,7 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 
 		acl.insertAce(acl.getEntries().size(), permission, recipient, true);
 		this.mutableAclService.updateAcl(acl);
+		evict(oid);
 
 		logger.debug("Added permission " + permission + " for Sid " + recipient + " contact " + contact);
 	}
@@ -92,6 +94,7 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 		// Delete the ACL information as well
 		ObjectIdentity oid = new ObjectIdentityImpl(Contact.class, contact.getId());
 		this.mutableAclService.deleteAcl(oid, false);
+		evict(oid);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("Deleted contact " + contact + " including ACL permissions");
@@ -113,6 +116,7 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 		}
 
 		this.mutableAclService.updateAcl(acl);
+		evict(oid);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("Deleted contact " + contact + " ACL permissions for recipient " + recipient);
@@ -146,11 +150,14 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 	public Contact getRandomContact() {
 		logger.debug("Returning random contact");
 
-		Random rnd = new Random();
-		List<Contact> contacts = this.contactDao.findAll();
-		int getNumber = rnd.nextInt(contacts.size());
+		return this.contactDao.findRandom();
+	}
 
-		return contacts.get(getNumber);
+	// so that the rest of the request sees the changed ACL
+	private void evict(ObjectIdentity oid) {
+		if (this.permissionEvaluator != null) {
+			this.permissionEvaluator.evict(oid);
+		}
 	}
 
 	protected String getUsername() {
@@ -172,6 +179,10 @@ public class ContactManagerBackend extends ApplicationObjectSupport implements C
 		this.mutableAclService = mutableAclService;
 	}
 
+	public void setPermissionEvaluator(EffectivePermissionEvaluator permissionEvaluator) {
+		this.permissionEvaluator = permissionEvaluator;
+	}
+
 	public void update(Contact contact) {
 		this.contactDao.update(contact);
 
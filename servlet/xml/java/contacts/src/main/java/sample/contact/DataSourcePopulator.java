@@ -16,24 +16,29 @@
 
 package sample.contact;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.sql.DataSource;
 
+import sample.contact.BulkAclWriter.AceDefinition;
+import sample.contact.BulkAclWriter.AclDefinition;
+
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.security.acls.domain.AclImpl;
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.domain.PrincipalSid;
-import org.springframework.security.acls.model.MutableAcl;
-import org.springframework.security.acls.model.MutableAclService;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.acls.model.Permission;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.AuthorityUtils;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.acls.model.Sid;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
@@ -45,11 +50,20 @@ import org.springframework.util.Assert;
  */
 public class DataSourcePopulator implements InitializingBean {
 
-	JdbcTemplate template;
+	private static final int FIRST_RANDOM_CONTACT = 10;
+
+	private static final Sid ROD = new PrincipalSid("rod");
 
-	private MutableAclService mutableAclService;
+	// don't want to mess around with consistent sample data
+	private static final List<Sid> RANDOM_RECIPIENTS = List.of(new PrincipalSid("bill"), new PrincipalSid("bob"),
+			new PrincipalSid("jane"));
 
-	final Random rnd = new Random();
+	private static final Permission[] RANDOM_PERMISSIONS = { BasePermission.ADMINISTRATION, BasePermission.READ,
+			BasePermission.DELETE };
+
+	JdbcTemplate template;
+
+	private BulkAclWriter aclWriter;
 
 	TransactionTemplate tt;
 
@@ -63,16 +77,14 @@ public class DataSourcePopulator implements InitializingBean {
 
 	private int createEntities = 50;
 
+	private int chunkSize = 1000;
+
+	private int seedingThreads = Runtime.getRuntime().availableProcessors();
+
 	public void afterPropertiesSet() {
-		Assert.notNull(this.mutableAclService, "mutableAclService required");
 		Assert.notNull(this.template, "dataSource required");
 		Assert.notNull(this.tt, "platformTransactionManager required");
 
-		// Set a user account that will initially own all the created data
-		Authentication authRequest = new UsernamePasswordAuthenticationToken("rod", "koala",
-				AuthorityUtils.createAuthorityList("ROLE_IGNORED"));
-		SecurityContextHolder.getContext().setAuthentication(authRequest);
-
 		try {
 			this.template.execute("DROP TABLE CONTACTS");
 			this.template.execute("DROP TABLE AUTHORITIES");
@@ -159,95 +171,131 @@ public class DataSourcePopulator implements InitializingBean {
 		this.template.execute("INSERT INTO contacts VALUES (8, 'Cindy Smith', 'cindy@smith.com');");
 		this.template.execute("INSERT INTO contacts VALUES (9, 'Jonathan Citizen', 'jonathan@xyz.com');");
 
-		for (int i = 10; i < this.createEntities; i++) {
-			String[] person = selectPerson();
-			this.template.execute("INSERT INTO contacts VALUES (" + i + ", '" + person[2] + "', '"
-					+ person[0].toLowerCase() + "@" + person[1].toLowerCase() + ".com');");
-		}
-
-		// Create acl_object_identity rows (and also acl_class rows as needed
-		for (int i = 1; i < this.createEntities; i++) {
-			final ObjectIdentity objectIdentity = new ObjectIdentityImpl(Contact.class, (long) i);
-			this.tt.execute((arg0) -> {
-				this.mutableAclService.createAcl(objectIdentity);
-
-				return null;
-			});
+		// Describe an ACL for each of the above contacts, with "rod" initially owning all of
+		// them
+		List<AclDefinition> acls = new ArrayList<>(FIRST_RANDOM_CONTACT - 1);
+		for (int i = 1; i < FIRST_RANDOM_CONTACT; i++) {
+			ObjectIdentity objectIdentity = new ObjectIdentityImpl(Contact.class, (long) i);
+			acls.add(new AclDefinition(objectIdentity, ROD, new ArrayList<>()));
 		}
 
 		// Now grant some permissions
-		grantPermissions(1, "rod", BasePermission.ADMINISTRATION);
-		grantPermissions(2, "rod", BasePermission.READ);
-		grantPermissions(3, "rod", BasePermission.READ);
-		grantPermissions(3, "rod", BasePermission.WRITE);
-		grantPermissions(3, "rod", BasePermission.DELETE);
-		grantPermissions(4, "rod", BasePermission.ADMINISTRATION);
-		grantPermissions(4, "dianne", BasePermission.ADMINISTRATION);
-		grantPermissions(4, "scott", BasePermission.READ);
-		grantPermissions(5, "dianne", BasePermission.ADMINISTRATION);
-		grantPermissions(5, "dianne", BasePermission.READ);
-		grantPermissions(6, "dianne", BasePermission.READ);
-		grantPermissions(6, "dianne", BasePermission.WRITE);
-		grantPermissions(6, "dianne", BasePermission.DELETE);
-		grantPermissions(6, "scott", BasePermission.READ);
-		grantPermissions(7, "scott", BasePermission.ADMINISTRATION);
-		grantPermissions(8, "dianne", BasePermission.ADMINISTRATION);
-		grantPermissions(8, "dianne", BasePermission.READ);
-		grantPermissions(8, "scott", BasePermission.READ);
-		grantPermissions(9, "scott", BasePermission.ADMINISTRATION);
-		grantPermissions(9, "scott", BasePermission.READ);
-		grantPermissions(9, "scott", BasePermission.WRITE);
-		grantPermissions(9, "scott", BasePermission.DELETE);
+		grantPermissions(acls, 1, "rod", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 2, "rod", BasePermission.READ);
+		grantPermissions(acls, 3, "rod", BasePermission.READ);
+		grantPermissions(acls, 3, "rod", BasePermission.WRITE);
+		grantPermissions(acls, 3, "rod", BasePermission.DELETE);
+		grantPermissions(acls, 4, "rod", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 4, "dianne", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 4, "scott", BasePermission.READ);
+		grantPermissions(acls, 5, "dianne", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 5, "dianne", BasePermission.READ);
+		grantPermissions(acls, 6, "dianne", BasePermission.READ);
+		grantPermissions(acls, 6, "dianne", BasePermission.WRITE);
+		grantPermissions(acls, 6, "dianne", BasePermission.DELETE);
+		grantPermissions(acls, 6, "scott", BasePermission.READ);
+		grantPermissions(acls, 7, "scott", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 8, "dianne", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 8, "dianne", BasePermission.READ);
+		grantPermissions(acls, 8, "scott", BasePermission.READ);
+		grantPermissions(acls, 9, "scott", BasePermission.ADMINISTRATION);
+		grantPermissions(acls, 9, "scott", BasePermission.READ);
+		grantPermissions(acls, 9, "scott", BasePermission.WRITE);
+		grantPermissions(acls, 9, "scott", BasePermission.DELETE);
 
 		// Now expressly change the owner of the first ten contacts
-		// We have to do this last, because "rod" owns all of them (doing it sooner would
-		// prevent ACL updates)
 		// Note that ownership has no impact on permissions - they're separate (ownership
 		// only allows ACl editing)
-		changeOwner(5, "dianne");
-		changeOwner(6, "dianne");
-		changeOwner(7, "scott");
-		changeOwner(8, "dianne");
-		changeOwner(9, "scott");
-
-		String[] users = { "bill", "bob", "jane" }; // don't want to mess around with
-													// consistent sample data
-		Permission[] permissions = { BasePermission.ADMINISTRATION, BasePermission.READ, BasePermission.DELETE };
-
-		for (int i = 10; i < this.createEntities; i++) {
-			String user = users[this.rnd.nextInt(users.length)];
-			Permission permission = permissions[this.rnd.nextInt(permissions.length)];
-			grantPermissions(i, user, permission);
-
-			String user2 = users[this.rnd.nextInt(users.length)];
-			Permission permission2 = permissions[this.rnd.nextInt(permissions.length)];
-			grantPermissions(i, user2, permission2);
+		changeOwner(acls, 5, "dianne");
+		changeOwner(acls, 6, "dianne");
+		changeOwner(acls, 7, "scott");
+		changeOwner(acls, 8, "dianne");
+		changeOwner(acls, 9, "scott");
+
+		// Write these ACLs, and register the sids that the random contacts are granted to,
+		// before seeding concurrently so that no two chunks race to insert the same sid
+		this.tt.executeWithoutResult((status) -> {
+			this.aclWriter.registerSids(RANDOM_RECIPIENTS);
+			this.aclWriter.createAcls(acls);
+		});
+
+		seedRandomContacts();
+	}
+
+	/**
+	 * Splits the remaining contacts into chunks that are each inserted, along with their
+	 * ACLs, in their own transaction on a bounded executor.
+	 */
+	private void seedRandomContacts() {
+		List<Callable<Object>> chunks = new ArrayList<>();
+		for (int from = FIRST_RANDOM_CONTACT; from < this.createEntities; from += this.chunkSize) {
+			int start = from;
+			int end = Math.min(from + this.chunkSize, this.createEntities);
+			chunks.add(Executors.callable(() -> this.tt.executeWithoutResult((status) -> seedChunk(start, end))));
+		}
+		if (chunks.isEmpty()) {
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.seedingThreads, chunks.size()));
+		try {
+			for (Future<Object> chunk : executor.invokeAll(chunks)) {
+				chunk.get();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while seeding contacts", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new IllegalStateException("Failed to seed contacts", ex.getCause());
 		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
 
-		SecurityContextHolder.clearContext();
+	private void seedChunk(int from, int to) {
+		Random rnd = ThreadLocalRandom.current();
+		List<Object[]> contacts = new ArrayList<>(to - from);
+		List<AclDefinition> acls = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			String[] person = selectPerson(rnd);
+			String email = person[0].toLowerCase() + "@" + person[1].toLowerCase() + ".com";
+			contacts.add(new Object[] { i, person[2], email });
+
+			List<AceDefinition> entries = List.of(randomAce(rnd), randomAce(rnd));
+			acls.add(new AclDefinition(new ObjectIdentityImpl(Contact.class, (long) i), ROD, entries));
+		}
+		this.template.batchUpdate("INSERT INTO contacts VALUES (?, ?, ?)", contacts);
+		this.aclWriter.createAcls(acls);
+	}
+
+	private AceDefinition randomAce(Random rnd) {
+		Sid recipient = RANDOM_RECIPIENTS.get(rnd.nextInt(RANDOM_RECIPIENTS.size()));
+		Permission permission = RANDOM_PERMISSIONS[rnd.nextInt(RANDOM_PERMISSIONS.length)];
+		return new AceDefinition(recipient, permission, true);
 	}
 
-	private void changeOwner(int contactNumber, String newOwnerUsername) {
-		AclImpl acl = (AclImpl) this.mutableAclService
-			.readAclById(new ObjectIdentityImpl(Contact.class, (long) contactNumber));
-		acl.setOwner(new PrincipalSid(newOwnerUsername));
-		updateAclInTransaction(acl);
+	private void changeOwner(List<AclDefinition> acls, int contactNumber, String newOwnerUsername) {
+		AclDefinition acl = acls.get(contactNumber - 1);
+		acls.set(contactNumber - 1,
+				new AclDefinition(acl.objectIdentity(), new PrincipalSid(newOwnerUsername), acl.entries()));
 	}
 
 	public int getCreateEntities() {
 		return this.createEntities;
 	}
 
-	private void grantPermissions(int contactNumber, String recipientUsername, Permission permission) {
-		AclImpl acl = (AclImpl) this.mutableAclService
-			.readAclById(new ObjectIdentityImpl(Contact.class, (long) contactNumber));
-		acl.insertAce(acl.getEntries().size(), permission, new PrincipalSid(recipientUsername), true);
-		updateAclInTransaction(acl);
+	private void grantPermissions(List<AclDefinition> acls, int contactNumber, String recipientUsername,
+			Permission permission) {
+		acls.get(contactNumber - 1)
+			.entries()
+			.add(new AceDefinition(new PrincipalSid(recipientUsername), permission, true));
 	}
 
-	private String[] selectPerson() {
-		String firstName = this.firstNames[this.rnd.nextInt(this.firstNames.length)];
-		String lastName = this.lastNames[this.rnd.nextInt(this.lastNames.length)];
+	private String[] selectPerson(Random rnd) {
+		String firstName = this.firstNames[rnd.nextInt(this.firstNames.length)];
+		String lastName = this.lastNames[rnd.nextInt(this.lastNames.length)];
 
 		return new String[] { firstName, lastName, firstName + " " + lastName };
 	}
@@ -256,24 +304,23 @@ public class DataSourcePopulator implements InitializingBean {
 		this.createEntities = createEntities;
 	}
 
-	public void setDataSource(DataSource dataSource) {
-		this.template = new JdbcTemplate(dataSource);
+	public void setChunkSize(int chunkSize) {
+		Assert.isTrue(chunkSize > 0, "chunkSize must be greater than 0");
+		this.chunkSize = chunkSize;
 	}
 
-	public void setMutableAclService(MutableAclService mutableAclService) {
-		this.mutableAclService = mutableAclService;
+	public void setSeedingThreads(int seedingThreads) {
+		Assert.isTrue(seedingThreads > 0, "seedingThreads must be greater than 0");
+		this.seedingThreads = seedingThreads;
 	}
 
-	public void setPlatformTransactionManager(PlatformTransactionManager platformTransactionManager) {
-		this.tt = new TransactionTemplate(platformTransactionManager);
+	public void setDataSource(DataSource dataSource) {
+		this.template = new JdbcTemplate(dataSource);
+		this.aclWriter = new BulkAclWriter(dataSource);
 	}
 
-	private void updateAclInTransaction(final MutableAcl acl) {
-		this.tt.execute((arg0) -> {
-			this.mutableAclService.updateAcl(acl);
-
-			return null;
-		});
+	public void setPlatformTransactionManager(PlatformTransactionManager platformTransactionManager) {
+		this.tt = new TransactionTemplate(platformTransactionManager);
 	}
 
 }
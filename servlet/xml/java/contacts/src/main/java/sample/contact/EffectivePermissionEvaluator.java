@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.contact;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.DefaultPermissionFactory;
+import org.springframework.security.acls.domain.ObjectIdentityRetrievalStrategyImpl;
+import org.springframework.security.acls.domain.SidRetrievalStrategyImpl;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.AclService;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * A {@link PermissionEvaluator} which resolves, once per request, the ACL of a domain
+ * object and a single bitmask of the {@link BasePermission}s the current user holds on
+ * it, and answers every permission check on that object from them.
+ *
+ * <p>
+ * This way the {@code @PostFilter} on {@link ContactManager#getAll()} and the "Del" and
+ * "Admin" links rendered by {@link IndexController} share one ACL evaluation per
+ * contact. Outside of a web request, the mask is resolved for every check.
+ *
+ * <p>
+ * A check for a single {@link BasePermission} is answered from the mask, each bit of
+ * which is what the {@link Acl} decides for that permission alone. Any other check,
+ * such as one for several permissions, is handed to the {@link Acl} read for the mask,
+ * so that denying entries and inheritance are decided in the same order as by
+ * {@link org.springframework.security.acls.AclPermissionEvaluator}.
+ *
+ * <p>
+ * Whoever changes an ACL during a request calls {@link #evict(ObjectIdentity)}, so that
+ * the rest of the request sees the change.
+ */
+public class EffectivePermissionEvaluator implements PermissionEvaluator {
+
+	private static final List<Permission> BASE_PERMISSIONS = List.of(BasePermission.READ, BasePermission.WRITE,
+			BasePermission.CREATE, BasePermission.DELETE, BasePermission.ADMINISTRATION);
+
+	private static final String ACLS_ATTRIBUTE = EffectivePermissionEvaluator.class.getName() + ".ACLS";
+
+	private final AclService aclService;
+
+	private final ObjectIdentityRetrievalStrategyImpl oidStrategy = new ObjectIdentityRetrievalStrategyImpl();
+
+	private final SidRetrievalStrategy sidRetrievalStrategy = new SidRetrievalStrategyImpl();
+
+	private final DefaultPermissionFactory permissionFactory = new DefaultPermissionFactory();
+
+	public EffectivePermissionEvaluator(AclService aclService) {
+		Assert.notNull(aclService, "AclService required");
+		this.aclService = aclService;
+	}
+
+	@Override
+	public boolean hasPermission(Authentication authentication, Object domainObject, Object permission) {
+		if (domainObject == null) {
+			return false;
+		}
+		return hasPermission(authentication, this.oidStrategy.getObjectIdentity(domainObject), permission);
+	}
+
+	@Override
+	public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+			Object permission) {
+		return hasPermission(authentication, this.oidStrategy.createObjectIdentity(targetId, targetType), permission);
+	}
+
+	private boolean hasPermission(Authentication authentication, ObjectIdentity objectIdentity, Object permission) {
+		List<Permission> required = resolvePermission(permission);
+		ResolvedAcl resolved = resolve(authentication, objectIdentity);
+		if (required.size() == 1 && BASE_PERMISSIONS.contains(required.get(0))) {
+			return (resolved.mask() & required.get(0).getMask()) != 0;
+		}
+		return resolved.acl() != null && isGranted(resolved.acl(), required, resolved.sids());
+	}
+
+	/**
+	 * Gets the combined mask of the {@link BasePermission}s the user holds on the domain
+	 * object.
+	 * @param authentication the user
+	 * @param domainObject the domain object
+	 * @return the combined mask, which is {@code 0} when the domain object has no ACL
+	 */
+	public int getMask(Authentication authentication, Object domainObject) {
+		return getMask(authentication, this.oidStrategy.getObjectIdentity(domainObject));
+	}
+
+	private int getMask(Authentication authentication, ObjectIdentity objectIdentity) {
+		return resolve(authentication, objectIdentity).mask();
+	}
+
+	/**
+	 * Forgets what was resolved for the domain object during the current request, if
+	 * any, so that its ACL is read again on the next check.
+	 * @param objectIdentity the object identity whose ACL has changed
+	 */
+	public void evict(ObjectIdentity objectIdentity) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return;
+		}
+		RequestAcls acls = (RequestAcls) attributes.getAttribute(ACLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (acls != null) {
+			acls.acls().remove(objectIdentity);
+		}
+	}
+
+	private ResolvedAcl resolve(Authentication authentication, ObjectIdentity objectIdentity) {
+		Map<ObjectIdentity, ResolvedAcl> acls = getRequestAcls(authentication);
+		if (acls == null) {
+			return readAcl(authentication, objectIdentity);
+		}
+		return acls.computeIfAbsent(objectIdentity, (key) -> readAcl(authentication, key));
+	}
+
+	private Map<ObjectIdentity, ResolvedAcl> getRequestAcls(Authentication authentication) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+		RequestAcls acls = (RequestAcls) attributes.getAttribute(ACLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (acls == null || acls.authentication() != authentication) {
+			acls = new RequestAcls(authentication, new HashMap<>());
+			attributes.setAttribute(ACLS_ATTRIBUTE, acls, RequestAttributes.SCOPE_REQUEST);
+		}
+		return acls.acls();
+	}
+
+	private ResolvedAcl readAcl(Authentication authentication, ObjectIdentity objectIdentity) {
+		List<Sid> sids = this.sidRetrievalStrategy.getSids(authentication);
+		Acl acl;
+		try {
+			acl = this.aclService.readAclById(objectIdentity, sids);
+		}
+		catch (NotFoundException ex) {
+			return new ResolvedAcl(null, sids, 0);
+		}
+		int mask = 0;
+		for (Permission permission : BASE_PERMISSIONS) {
+			if (isGranted(acl, List.of(permission), sids)) {
+				mask |= permission.getMask();
+			}
+		}
+		return new ResolvedAcl(acl, sids, mask);
+	}
+
+	private boolean isGranted(Acl acl, List<Permission> permission, List<Sid> sids) {
+		try {
+			return acl.isGranted(permission, sids, false);
+		}
+		catch (NotFoundException ex) {
+			return false;
+		}
+	}
+
+	private List<Permission> resolvePermission(Object permission) {
+		if (permission instanceof Integer mask) {
+			return List.of(this.permissionFactory.buildFromMask(mask));
+		}
+		if (permission instanceof Permission single) {
+			return List.of(single);
+		}
+		if (permission instanceof Permission[] permissions) {
+			return Arrays.asList(permissions);
+		}
+		if (permission instanceof String name) {
+			try {
+				return List.of(this.permissionFactory.buildFromName(name));
+			}
+			catch (IllegalArgumentException ex) {
+				return List.of(this.permissionFactory.buildFromName(name.toUpperCase(Locale.ENGLISH)));
+			}
+		}
+		throw new IllegalArgumentException("Unsupported permission: " + permission);
+	}
+
+	/**
+	 * The ACL of a domain object, which is {@code null} when it has none, and the mask of
+	 * the {@link BasePermission}s it grants.
+	 */
+	private record ResolvedAcl(Acl acl, List<Sid> sids, int mask) {
+
+	}
+
+	private record RequestAcls(Authentication authentication, Map<ObjectIdentity, ResolvedAcl> acls) {
+
+	}
+
+}
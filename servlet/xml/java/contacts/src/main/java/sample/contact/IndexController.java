@@ -21,10 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.PermissionEvaluator;
-import org.springframework.security.acls.AclPermissionEvaluator;
 import org.springframework.security.acls.domain.BasePermission;
-import org.springframework.security.acls.model.Permission;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -42,16 +39,15 @@ import org.springframework.web.servlet.ModelAndView;
 @Controller
 public class IndexController {
 
-	private static final Permission[] HAS_DELETE = new Permission[] { BasePermission.DELETE,
-			BasePermission.ADMINISTRATION };
+	private static final int HAS_DELETE = BasePermission.DELETE.getMask() | BasePermission.ADMINISTRATION.getMask();
 
-	private static final Permission[] HAS_ADMIN = new Permission[] { BasePermission.ADMINISTRATION };
+	private static final int HAS_ADMIN = BasePermission.ADMINISTRATION.getMask();
 
 	@Autowired
 	private ContactManager contactManager;
 
 	@Autowired
-	private PermissionEvaluator permissionEvaluator;
+	private EffectivePermissionEvaluator permissionEvaluator;
 
 	/**
 	 * The public index page, used for unauthenticated users.
@@ -75,10 +71,10 @@ public class IndexController {
 	 * In addition to rendering the list of contacts, the view will also include a "Del"
 	 * or "Admin" link beside the contact, depending on whether the user has the
 	 * corresponding permissions (admin permission is assumed to imply delete here). This
-	 * information is stored in the model using the injected {@link PermissionEvaluator}
-	 * instance. The implementation should be an instance of
-	 * {@link AclPermissionEvaluator} or one which is compatible with Spring Security's
-	 * ACL module.
+	 * information is stored in the model using the injected
+	 * {@link EffectivePermissionEvaluator}, which resolves each contact's permissions
+	 * once per request, so both links are decided from the mask already resolved by
+	 * the {@code @PostFilter}.
 	 * @return index page
 	 */
 	@RequestMapping(value = "/secure/index.htm", method = RequestMethod.GET)
@@ -90,8 +86,9 @@ public class IndexController {
 		Authentication user = SecurityContextHolder.getContext().getAuthentication();
 
 		for (Contact contact : myContactsList) {
-			hasDelete.put(contact, this.permissionEvaluator.hasPermission(user, contact, HAS_DELETE));
-			hasAdmin.put(contact, this.permissionEvaluator.hasPermission(user, contact, HAS_ADMIN));
+			int mask = this.permissionEvaluator.getMask(user, contact);
+			hasDelete.put(contact, (mask & HAS_DELETE) != 0);
+			hasAdmin.put(contact, (mask & HAS_ADMIN) != 0);
 		}
 
 		Map<String, Object> model = new HashMap<>();
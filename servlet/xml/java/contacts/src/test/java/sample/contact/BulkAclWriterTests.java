@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.contact;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sample.contact.BulkAclWriter.AceDefinition;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.acls.domain.AclAuthorizationStrategy;
+import org.springframework.security.acls.domain.AclAuthorizationStrategyImpl;
+import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.ConsoleAuditLogger;
+import org.springframework.security.acls.domain.DefaultPermissionGrantingStrategy;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.domain.SpringCacheBasedAclCache;
+import org.springframework.security.acls.jdbc.BasicLookupStrategy;
+import org.springframework.security.acls.jdbc.JdbcAclService;
+import org.springframework.security.acls.model.AccessControlEntry;
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BulkAclWriter}.
+ */
+class BulkAclWriterTests {
+
+	private final PrincipalSid bob = new PrincipalSid("bob");
+
+	private final PrincipalSid jane = new PrincipalSid("jane");
+
+	private final ObjectIdentity contact1 = new ObjectIdentityImpl(Contact.class, 1L);
+
+	private final ObjectIdentity contact3 = new ObjectIdentityImpl(Contact.class, 3L);
+
+	private DriverManagerDataSource dataSource;
+
+	private AclCache aclCache;
+
+	private JdbcAclService aclService;
+
+	@BeforeEach
+	void setUp() {
+		this.dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:bulk-acl-writer;hsqldb.tx=mvcc", "sa", "");
+		DataSourcePopulator populator = new DataSourcePopulator();
+		populator.setDataSource(this.dataSource);
+		populator.setPlatformTransactionManager(new DataSourceTransactionManager(this.dataSource));
+		populator.setCreateEntities(10);
+		populator.afterPropertiesSet();
+		AclAuthorizationStrategy authorizationStrategy = new AclAuthorizationStrategyImpl(
+				new SimpleGrantedAuthority("ROLE_ADMINISTRATOR"));
+		this.aclCache = new SpringCacheBasedAclCache(new ConcurrentMapCache("acls"),
+				new DefaultPermissionGrantingStrategy(new ConsoleAuditLogger()), authorizationStrategy);
+		this.aclService = new JdbcAclService(this.dataSource, new BasicLookupStrategy(this.dataSource,
+				this.aclCache, authorizationStrategy, new ConsoleAuditLogger()));
+	}
+
+	@Test
+	void appendEntriesWhenAclsExistThenAddedAfterExistingEntries() {
+		List<AccessControlEntry> existing = this.aclService.readAclById(this.contact3).getEntries();
+		BulkAclWriter writer = new BulkAclWriter(this.dataSource);
+		writer.setAclCache(this.aclCache);
+		Map<ObjectIdentity, List<AceDefinition>> entries = new LinkedHashMap<>();
+		entries.put(this.contact1, List.of(new AceDefinition(this.bob, BasePermission.READ, true)));
+		entries.put(this.contact3, List.of(new AceDefinition(this.bob, BasePermission.WRITE, true),
+				new AceDefinition(this.jane, BasePermission.READ, false)));
+
+		writer.appendEntries(entries);
+
+		List<AccessControlEntry> contact3Entries = this.aclService.readAclById(this.contact3).getEntries();
+		assertThat(contact3Entries).hasSize(existing.size() + 2);
+		assertThat(contact3Entries.subList(0, existing.size())).extracting(AccessControlEntry::getId)
+			.containsExactlyElementsOf(existing.stream().map(AccessControlEntry::getId).toList());
+		AccessControlEntry write = contact3Entries.get(existing.size());
+		assertThat(write.getSid()).isEqualTo(this.bob);
+		assertThat(write.getPermission()).isEqualTo(BasePermission.WRITE);
+		AccessControlEntry deny = contact3Entries.get(existing.size() + 1);
+		assertThat(deny.getSid()).isEqualTo(this.jane);
+		assertThat(deny.isGranting()).isFalse();
+		assertThat(this.aclService.readAclById(this.contact1).getEntries()).extracting(AccessControlEntry::getSid)
+			.endsWith(this.bob);
+	}
+
+	@Test
+	void appendEntriesWhenNoAclThenNotFound() {
+		BulkAclWriter writer = new BulkAclWriter(this.dataSource);
+		ObjectIdentity unknown = new ObjectIdentityImpl(Contact.class, 1000L);
+
+		assertThatExceptionOfType(NotFoundException.class).isThrownBy(() -> writer
+			.appendEntries(Map.of(unknown, List.of(new AceDefinition(this.bob, BasePermission.READ, true)))));
+	}
+
+}
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
@@ -47,6 +48,9 @@ class ContactManagerTests {
 	@Autowired
 	protected ContactManager contactManager;
 
+	@Autowired
+	protected EffectivePermissionEvaluator permissionEvaluator;
+
 	void assertContainsContact(long id, List<Contact> contacts) {
 		for (Contact contact : contacts) {
 			if (contact.getId().equals(id)) {
@@ -123,6 +127,51 @@ class ContactManagerTests {
 		this.contactManager.addPermission(c1, new PrincipalSid("bob"), BasePermission.ADMINISTRATION);
 	}
 
+	@Test
+	@WithMockUser("rod")
+	void testrodEffectivePermissions() {
+		Authentication rod = SecurityContextHolder.getContext().getAuthentication();
+		Contact c1 = this.contactManager.getById(1L);
+		Contact c3 = this.contactManager.getById(3L);
+
+		assertThat(this.permissionEvaluator.getMask(rod, c1)).isEqualTo(BasePermission.ADMINISTRATION.getMask());
+		assertThat(this.permissionEvaluator.getMask(rod, c3)).isEqualTo(BasePermission.READ.getMask()
+				| BasePermission.WRITE.getMask() | BasePermission.DELETE.getMask());
+		assertThat(this.permissionEvaluator.hasPermission(rod, c3, "delete")).isTrue();
+		assertThat(this.permissionEvaluator.hasPermission(rod, c3, "administration")).isFalse();
+		assertThat(this.permissionEvaluator.hasPermission(rod, 3L, Contact.class.getName(), BasePermission.WRITE))
+			.isTrue();
+	}
+
+	@Test
+	@WithMockUser("rod")
+	void testrodEffectivePermissionsWhenAclChangedInSameRequest() {
+		Authentication rod = SecurityContextHolder.getContext().getAuthentication();
+		Contact c1 = this.contactManager.getById(1L);
+		int administration = BasePermission.ADMINISTRATION.getMask();
+		assertThat(this.permissionEvaluator.getMask(rod, c1)).isEqualTo(administration);
+
+		this.contactManager.addPermission(c1, new PrincipalSid("rod"), BasePermission.WRITE);
+		try {
+			assertThat(this.permissionEvaluator.getMask(rod, c1))
+				.isEqualTo(administration | BasePermission.WRITE.getMask());
+		}
+		finally {
+			this.contactManager.deletePermission(c1, new PrincipalSid("rod"), BasePermission.WRITE);
+		}
+
+		assertThat(this.permissionEvaluator.getMask(rod, c1)).isEqualTo(administration);
+	}
+
+	@Test
+	void testRandomContact() {
+		for (int i = 0; i < 100; i++) {
+			Contact contact = this.contactManager.getRandomContact();
+			assertThat(contact).isNotNull();
+			assertThat(contact.getName()).isNotEmpty();
+		}
+	}
+
 	@Test
 	@WithMockUser("scott")
 	void testScott() {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.contact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests {@link DataSourcePopulator}.
+ */
+class DataSourcePopulatorTests {
+
+	private static final int CREATE_ENTITIES = 100;
+
+	// the number of entries granted to each of the first nine contacts
+	private static final int[] FIXED_ENTRIES = { 1, 1, 3, 3, 2, 4, 1, 3, 4 };
+
+	@Test
+	void afterPropertiesSetWhenSeveralChunksThenSeedsEveryContactAndAcl() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:hsqldb:mem:populator;hsqldb.tx=mvcc", "sa", "");
+		DataSourcePopulator populator = new DataSourcePopulator();
+		populator.setDataSource(dataSource);
+		populator.setPlatformTransactionManager(new DataSourceTransactionManager(dataSource));
+		populator.setCreateEntities(CREATE_ENTITIES);
+		populator.setChunkSize(7);
+		populator.setSeedingThreads(4);
+		populator.afterPropertiesSet();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		int contacts = CREATE_ENTITIES - 1;
+		int randomContacts = contacts - FIXED_ENTRIES.length;
+		int fixedEntries = 0;
+		for (int entries : FIXED_ENTRIES) {
+			fixedEntries += entries;
+		}
+		assertThat(jdbc.queryForObject("select count(*) from contacts", Integer.class)).isEqualTo(contacts);
+		assertThat(jdbc.queryForObject("select count(distinct id) from contacts", Integer.class)).isEqualTo(contacts);
+		assertThat(jdbc.queryForObject("select count(*) from acl_object_identity", Integer.class))
+			.isEqualTo(contacts);
+		assertThat(jdbc.queryForObject("select count(*) from acl_entry", Integer.class))
+			.isEqualTo(fixedEntries + randomContacts * 2);
+
+		Map<Long, List<Map<String, Object>>> entriesByContact = entriesByContact(jdbc);
+		assertThat(entriesByContact).hasSize(contacts);
+		for (long id = 1; id < CREATE_ENTITIES; id++) {
+			List<Map<String, Object>> entries = entriesByContact.get(id);
+			int expected = (id <= FIXED_ENTRIES.length) ? FIXED_ENTRIES[(int) id - 1] : 2;
+			assertThat(entries).as("entries of contact %d", id).hasSize(expected);
+			for (int order = 0; order < entries.size(); order++) {
+				assertThat(entries.get(order).get("ACE_ORDER")).isEqualTo(order);
+			}
+			if (id > FIXED_ENTRIES.length) {
+				assertThat(entries).extracting((entry) -> entry.get("SID"))
+					.allSatisfy((sid) -> assertThat(sid).isIn(Set.of("bill", "bob", "jane")));
+			}
+		}
+	}
+
+	private static Map<Long, List<Map<String, Object>>> entriesByContact(JdbcTemplate jdbc) {
+		String sql = "select oi.object_id_identity, e.ace_order, s.sid from acl_object_identity oi "
+				+ "left join acl_entry e on e.acl_object_identity = oi.id left join acl_sid s on s.id = e.sid "
+				+ "order by oi.object_id_identity, e.ace_order";
+		Map<Long, List<Map<String, Object>>> entriesByContact = new TreeMap<>();
+		for (Map<String, Object> row : jdbc.queryForList(sql)) {
+			List<Map<String, Object>> entries = entriesByContact.computeIfAbsent(
+					Long.valueOf((String) row.get("OBJECT_ID_IDENTITY")), (id) -> new ArrayList<>());
+			if (row.get("ACE_ORDER") != null) {
+				entries.add(row);
+			}
+		}
+		return entriesByContact;
+	}
+
+}
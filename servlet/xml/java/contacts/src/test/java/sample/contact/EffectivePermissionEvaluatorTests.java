@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.contact;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.acls.AclPermissionEvaluator;
+import org.springframework.security.acls.domain.AclImpl;
+import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.DefaultPermissionGrantingStrategy;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.AclService;
+import org.springframework.security.acls.model.MutableAcl;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link EffectivePermissionEvaluator}.
+ */
+class EffectivePermissionEvaluatorTests {
+
+	private static final String CONTACT = Contact.class.getName();
+
+	private final Sid rod = new PrincipalSid("rod");
+
+	private final Authentication authentication = new TestingAuthenticationToken("rod", "password");
+
+	private final Map<ObjectIdentity, Acl> acls = new HashMap<>();
+
+	private final AclService aclService = new MapAclService(this.acls);
+
+	private final EffectivePermissionEvaluator permissionEvaluator = new EffectivePermissionEvaluator(
+			this.aclService);
+
+	@AfterEach
+	void resetRequestAttributes() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void hasPermissionWhenDenyingEntriesThenDecidesAsAclPermissionEvaluator() {
+		MutableAcl parent = acl(1L, null);
+		parent.insertAce(0, BasePermission.ADMINISTRATION, this.rod, true);
+		MutableAcl child = acl(2L, parent);
+		child.insertAce(0, BasePermission.READ, this.rod, false);
+		child.insertAce(1, BasePermission.READ, this.rod, true);
+		child.insertAce(2, BasePermission.WRITE, this.rod, true);
+		AclPermissionEvaluator aclPermissionEvaluator = new AclPermissionEvaluator(this.aclService);
+		List<Object> permissions = List.of(BasePermission.READ, BasePermission.WRITE, BasePermission.ADMINISTRATION,
+				"delete", new Permission[] { BasePermission.READ, BasePermission.ADMINISTRATION },
+				new Permission[] { BasePermission.READ, BasePermission.WRITE });
+
+		for (Object permission : permissions) {
+			assertThat(this.permissionEvaluator.hasPermission(this.authentication, 2L, CONTACT, permission))
+				.as("%s", permission)
+				.isEqualTo(aclPermissionEvaluator.hasPermission(this.authentication, 2L, CONTACT, permission));
+		}
+		// the first entry denies read, so the parent's administration is not consulted
+		assertThat(this.permissionEvaluator.hasPermission(this.authentication, 2L, CONTACT,
+				new Permission[] { BasePermission.READ, BasePermission.ADMINISTRATION }))
+			.isFalse();
+	}
+
+	@Test
+	void hasPermissionWhenEvictedDuringRequestThenReadsAclAgain() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		MutableAcl acl = acl(1L, null);
+		acl.insertAce(0, BasePermission.READ, this.rod, true);
+		assertThat(this.permissionEvaluator.hasPermission(this.authentication, 1L, CONTACT, "write")).isFalse();
+
+		acl.insertAce(1, BasePermission.WRITE, this.rod, true);
+		assertThat(this.permissionEvaluator.hasPermission(this.authentication, 1L, CONTACT, "write")).isFalse();
+
+		this.permissionEvaluator.evict(acl.getObjectIdentity());
+		assertThat(this.permissionEvaluator.hasPermission(this.authentication, 1L, CONTACT, "write")).isTrue();
+	}
+
+	private MutableAcl acl(long id, Acl parent) {
+		ObjectIdentity objectIdentity = new ObjectIdentityImpl(CONTACT, id);
+		MutableAcl acl = new AclImpl(objectIdentity, id, (secured, changeType) -> {
+		}, new DefaultPermissionGrantingStrategy((granted, ace) -> {
+		}), parent, null, true, this.rod);
+		this.acls.put(objectIdentity, acl);
+		return acl;
+	}
+
+	private static final class MapAclService implements AclService {
+
+		private final Map<ObjectIdentity, Acl> acls;
+
+		MapAclService(Map<ObjectIdentity, Acl> acls) {
+			this.acls = acls;
+		}
+
+		@Override
+		public List<ObjectIdentity> findChildren(ObjectIdentity parentIdentity) {
+			return List.of();
+		}
+
+		@Override
+		public Acl readAclById(ObjectIdentity object) {
+			return readAclById(object, null);
+		}
+
+		@Override
+		public Acl readAclById(ObjectIdentity object, List<Sid> sids) {
+			Acl acl = this.acls.get(object);
+			if (acl == null) {
+				throw new NotFoundException("No ACL for " + object);
+			}
+			return acl;
+		}
+
+		@Override
+		public Map<ObjectIdentity, Acl> readAclsById(List<ObjectIdentity> objects) {
+			return readAclsById(objects, null);
+		}
+
+		@Override
+		public Map<ObjectIdentity, Acl> readAclsById(List<ObjectIdentity> objects, List<Sid> sids) {
+			Map<ObjectIdentity, Acl> acls = new HashMap<>();
+			for (ObjectIdentity object : objects) {
+				acls.put(object, readAclById(object, sids));
+			}
+			return acls;
+		}
+
+	}
+
+}
@@ -16,9 +16,6 @@
 
 package sample.dms;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.springframework.util.Assert;
 
 /**
@@ -34,6 +31,9 @@ public abstract class AbstractElement {
 	/** The parent of this token (a directory, or null if referring to root). */
 	private final AbstractElement parent;
 
+	/** The fully-qualified name of this token, derived from its parent's. */
+	private final String fullName;
+
 	/** The database identifier for this object (null if not persisted). */
 	private Long id;
 
@@ -43,6 +43,7 @@ public abstract class AbstractElement {
 	protected AbstractElement() {
 		this.name = "/";
 		this.parent = null;
+		this.fullName = "/";
 		this.id = -1L;
 	}
 
@@ -57,6 +58,8 @@ public abstract class AbstractElement {
 		Assert.notNull(parent.getId(), "The parent must have been saved in order to create a child");
 		this.name = name;
 		this.parent = parent;
+		String parentName = parent.getFullName();
+		this.fullName = parentName.endsWith("/") ? parentName + name : parentName + "/" + name;
 	}
 
 	public Long getId() {
@@ -77,27 +80,12 @@ public abstract class AbstractElement {
 	}
 
 	/**
-	 * Gets the fully-qualified name of this element, including any parents.
+	 * Gets the fully-qualified name of this element, including any parents. The name is
+	 * computed once, from the parent's, when the element is created.
 	 * @return the fully-qualified name of this element, including any parents
 	 */
 	public String getFullName() {
-		List<String> strings = new ArrayList<>();
-		AbstractElement currentElement = this;
-		while (currentElement != null) {
-			strings.add(0, currentElement.getName());
-			currentElement = currentElement.getParent();
-		}
-
-		StringBuilder sb = new StringBuilder();
-		String lastCharacter = null;
-		for (String token : strings) {
-			if (!"/".equals(lastCharacter) && lastCharacter != null) {
-				sb.append("/");
-			}
-			sb.append(token);
-			lastCharacter = token.substring(token.length() - 1);
-		}
-		return sb.toString();
+		return this.fullName;
 	}
 
 }
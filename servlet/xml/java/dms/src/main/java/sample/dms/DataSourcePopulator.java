@@ -16,6 +16,9 @@
 
 package sample.dms;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.InitializingBean;
@@ -72,9 +75,13 @@ public class DataSourcePopulator implements InitializingBean {
 
 		// Document management system business tables
 		this.template.execute(
-				"CREATE TABLE DIRECTORY(ID BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 100) NOT NULL PRIMARY KEY, DIRECTORY_NAME VARCHAR_IGNORECASE(50) NOT NULL, PARENT_DIRECTORY_ID BIGINT)");
+				"CREATE TABLE DIRECTORY(ID BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 100) NOT NULL PRIMARY KEY, DIRECTORY_NAME VARCHAR_IGNORECASE(50) NOT NULL, PARENT_DIRECTORY_ID BIGINT, FULL_NAME VARCHAR_IGNORECASE(1024) NOT NULL)");
 		this.template.execute(
-				"CREATE TABLE FILE(ID BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 100) NOT NULL PRIMARY KEY, FILE_NAME VARCHAR_IGNORECASE(50) NOT NULL, CONTENT VARCHAR_IGNORECASE(1024), PARENT_DIRECTORY_ID BIGINT)");
+				"CREATE TABLE FILE(ID BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 100) NOT NULL PRIMARY KEY, FILE_NAME VARCHAR_IGNORECASE(50) NOT NULL, CONTENT VARCHAR_IGNORECASE(1024), PARENT_DIRECTORY_ID BIGINT, FULL_NAME VARCHAR_IGNORECASE(1024) NOT NULL)");
+		// Each element's materialized path, so subtrees and full names resolve with one
+		// index range scan
+		this.template.execute("CREATE INDEX IX_DIRECTORY_FULL_NAME ON DIRECTORY(FULL_NAME);");
+		this.template.execute("CREATE INDEX IX_FILE_FULL_NAME ON FILE(FULL_NAME);");
 
 		// Populate the authentication and role tables
 		this.template.execute(
@@ -164,10 +171,11 @@ public class DataSourcePopulator implements InitializingBean {
 		Assert.notNull(documentDao, "DocumentDao required");
 		Assert.notNull(parent, "Parent required");
 		int countBeforeInsert = documentDao.findElements(parent).length;
+		List<File> files = new ArrayList<>();
 		for (int i = 0; i < 10; i++) {
-			File file = new File("file_" + i + ".txt", parent);
-			documentDao.create(file);
+			files.add(new File("file_" + i + ".txt", parent));
 		}
+		documentDao.createAll(parent, files);
 		Assert.isTrue(countBeforeInsert + 10 == documentDao.findElements(parent).length,
 				"Failed to increase count by 10");
 	}
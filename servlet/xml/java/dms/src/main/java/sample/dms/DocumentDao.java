@@ -16,6 +16,8 @@
 
 package sample.dms;
 
+import java.util.List;
+
 /**
  * Interface to define Document data access operations.
  *
@@ -30,6 +32,14 @@ public interface DocumentDao {
 	 */
 	void create(AbstractElement element);
 
+	/**
+	 * Creates entries in the database for many elements of the same directory at once.
+	 * @param parent the directory every element belongs to (must have been saved)
+	 * @param elements unsaved elements (their "id" will be updated after method is
+	 * invoked)
+	 */
+	void createAll(Directory parent, List<? extends AbstractElement> elements);
+
 	/**
 	 * Removes a file from the database for the specified element.
 	 * @param file the file to remove (cannot be null)
@@ -51,4 +61,32 @@ public interface DocumentDao {
 	 */
 	AbstractElement[] findElements(Directory directory);
 
+	/**
+	 * Locates every element in the database which appears anywhere beneath the presented
+	 * directory.
+	 * @param directory the directory (cannot be null - use
+	 * {@link Directory#ROOT_DIRECTORY} for root)
+	 * @return zero or more elements, the directories (parents before their children)
+	 * followed by the files (an empty array may be returned - never null)
+	 */
+	AbstractElement[] findDescendants(Directory directory);
+
+	/**
+	 * Locates every file in the database which appears anywhere beneath the presented
+	 * directory.
+	 * @param directory the directory (cannot be null - use
+	 * {@link Directory#ROOT_DIRECTORY} for root)
+	 * @return zero or more files (an empty array may be returned - never null)
+	 */
+	File[] findFilesBeneath(Directory directory);
+
+	/**
+	 * Locates the element with the presented fully-qualified name.
+	 * @param fullName the fully-qualified name, as returned by
+	 * {@link AbstractElement#getFullName()}
+	 * @return the element, whose parents are fully populated, or null if there is no
+	 * such element
+	 */
+	AbstractElement findElement(String fullName);
+
 }
@@ -16,9 +16,24 @@
 
 package sample.dms;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.security.util.FieldUtils;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
@@ -30,17 +45,28 @@ import org.springframework.util.Assert;
  */
 public class DocumentDaoImpl extends JdbcDaoSupport implements DocumentDao {
 
-	private static final String INSERT_INTO_DIRECTORY = "insert into directory(directory_name, parent_directory_id) values (?,?)";
+	private static final String INSERT_INTO_DIRECTORY = "insert into directory(directory_name, parent_directory_id, full_name) values (?,?,?)";
 
-	private static final String INSERT_INTO_FILE = "insert into file(file_name, content, parent_directory_id) values (?,?,?)";
+	private static final String INSERT_INTO_FILE = "insert into file(file_name, content, parent_directory_id, full_name) values (?,?,?,?)";
 
-	private static final String SELECT_FROM_DIRECTORY = "select id from directory where parent_directory_id = ?";
+	private static final String SELECT_FROM_DIRECTORY = "select id, directory_name from directory where parent_directory_id = ?";
 
-	private static final String SELECT_FROM_DIRECTORY_NULL = "select id from directory where parent_directory_id is null";
+	private static final String SELECT_FROM_DIRECTORY_NULL = "select id, directory_name from directory where parent_directory_id is null";
 
 	private static final String SELECT_FROM_FILE = "select id, file_name, content, parent_directory_id from file where parent_directory_id = ?";
 
-	private static final String SELECT_FROM_DIRECTORY_SINGLE = "select id, directory_name, parent_directory_id from directory where id = ?";
+	private static final String SELECT_DIRECTORY_ANCESTRY = "with recursive ancestry(id, directory_name, parent_directory_id) as ("
+			+ "select id, directory_name, parent_directory_id from directory where id = ? union all "
+			+ "select d.id, d.directory_name, d.parent_directory_id from directory d, ancestry a where d.id = a.parent_directory_id) "
+			+ "select id, directory_name, parent_directory_id from ancestry";
+
+	private static final String SELECT_DIRECTORIES_BENEATH = "select id, directory_name, parent_directory_id from directory where full_name >= ? and full_name < ? order by full_name";
+
+	private static final String SELECT_FILES_BENEATH = "select id, file_name, parent_directory_id from file where full_name >= ? and full_name < ? order by full_name";
+
+	private static final String SELECT_DIRECTORIES_BY_FULL_NAME = "select id, directory_name, parent_directory_id from directory where full_name in (%s) order by full_name";
+
+	private static final String SELECT_FILE_BY_FULL_NAME = "select id, file_name, parent_directory_id from file where full_name = ?";
 
 	private static final String DELETE_FROM_FILE = "delete from file where id = ?";
 
@@ -59,13 +85,15 @@ public class DocumentDaoImpl extends JdbcDaoSupport implements DocumentDao {
 		if (element instanceof Directory) {
 			Directory directory = (Directory) element;
 			Long parentId = (directory.getParent() == null) ? null : directory.getParent().getId();
-			getJdbcTemplate().update(INSERT_INTO_DIRECTORY, new Object[] { directory.getName(), parentId });
+			getJdbcTemplate().update(INSERT_INTO_DIRECTORY,
+					new Object[] { directory.getName(), parentId, directory.getFullName() });
 			FieldUtils.setProtectedFieldValue("id", directory, obtainPrimaryKey());
 		}
 		else if (element instanceof File) {
 			File file = (File) element;
 			Long parentId = (file.getParent() == null) ? null : file.getParent().getId();
-			getJdbcTemplate().update(INSERT_INTO_FILE, new Object[] { file.getName(), file.getContent(), parentId });
+			getJdbcTemplate().update(INSERT_INTO_FILE,
+					new Object[] { file.getName(), file.getContent(), parentId, file.getFullName() });
 			FieldUtils.setProtectedFieldValue("id", file, obtainPrimaryKey());
 		}
 		else {
@@ -73,56 +101,242 @@ public class DocumentDaoImpl extends JdbcDaoSupport implements DocumentDao {
 		}
 	}
 
+	public void createAll(Directory parent, List<? extends AbstractElement> elements) {
+		Assert.notNull(parent, "Parent required");
+		Assert.notNull(parent.getId(), "The parent must have been saved in order to create children");
+		Assert.notNull(elements, "Elements required");
+		List<Directory> directories = new ArrayList<>();
+		List<File> files = new ArrayList<>();
+		for (AbstractElement element : elements) {
+			Assert.isNull(element.getId(), "Element has previously been saved");
+			Assert.isTrue(parent.getId().equals(element.getParent().getId()),
+					"Every element must belong to the parent directory");
+			if (element instanceof Directory directory) {
+				directories.add(directory);
+			}
+			else if (element instanceof File file) {
+				files.add(file);
+			}
+			else {
+				throw new IllegalArgumentException("Unsupported AbstractElement");
+			}
+		}
+		batchInsert(INSERT_INTO_DIRECTORY, directories, (ps, directory) -> {
+			ps.setString(1, directory.getName());
+			ps.setLong(2, parent.getId());
+			ps.setString(3, directory.getFullName());
+		});
+		batchInsert(INSERT_INTO_FILE, files, (ps, file) -> {
+			ps.setString(1, file.getName());
+			ps.setString(2, file.getContent());
+			ps.setLong(3, parent.getId());
+			ps.setString(4, file.getFullName());
+		});
+	}
+
+	/**
+	 * Inserts the elements using a single JDBC batch, and assigns each element the key
+	 * generated for it.
+	 */
+	private <T extends AbstractElement> void batchInsert(String sql, List<T> elements,
+			ParameterizedPreparedStatementSetter<T> setter) {
+		if (elements.isEmpty()) {
+			return;
+		}
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		getJdbcTemplate().batchUpdate((connection) -> connection.prepareStatement(sql, new String[] { "ID" }),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						setter.setValues(ps, elements.get(i));
+					}
+
+					@Override
+					public int getBatchSize() {
+						return elements.size();
+					}
+
+				}, keyHolder);
+		List<Map<String, Object>> keys = keyHolder.getKeyList();
+		Assert.state(keys.size() == elements.size(), "Expected a generated key for every inserted element");
+		for (int i = 0; i < elements.size(); i++) {
+			Number id = (Number) keys.get(i).values().iterator().next();
+			FieldUtils.setProtectedFieldValue("id", elements.get(i), id.longValue());
+		}
+	}
+
 	public void delete(File file) {
 		Assert.notNull(file, "File required");
 		Assert.notNull(file.getId(), "File ID required");
 		getJdbcTemplate().update(DELETE_FROM_FILE, new Object[] { file.getId() });
 	}
 
-	private Directory getDirectoryWithImmediateParentPopulated(final Long id) {
-		return getJdbcTemplate().queryForObject(SELECT_FROM_DIRECTORY_SINGLE, new Object[] { id }, (rs, rowNumber) -> {
-			Long parentDirectoryId = rs.getLong("parent_directory_id");
-			Directory parentDirectory = Directory.ROOT_DIRECTORY;
-			if (parentDirectoryId != null && !parentDirectoryId.equals(-1L)) {
-				// Need to go and lookup the parent, so do that first
-				parentDirectory = getDirectoryWithImmediateParentPopulated(parentDirectoryId);
-			}
-			Directory directory = new Directory(rs.getString("directory_name"), parentDirectory);
-			FieldUtils.setProtectedFieldValue("id", directory, rs.getLong("id"));
-			return directory;
-		});
+	/**
+	 * Loads a directory along with all of its ancestors using a single recursive query.
+	 * @param id the directory identifier (-1 refers to the root directory)
+	 * @return the directory, whose parents are fully populated
+	 */
+	private Directory getDirectoryWithAncestorsPopulated(Long id) {
+		if (Directory.ROOT_DIRECTORY.getId().equals(id)) {
+			return Directory.ROOT_DIRECTORY;
+		}
+		Map<Long, DirectoryRow> rows = new HashMap<>();
+		for (DirectoryRow row : getJdbcTemplate().query(SELECT_DIRECTORY_ANCESTRY, this::mapDirectoryRow, id)) {
+			rows.put(row.id(), row);
+		}
+		if (!rows.containsKey(id)) {
+			throw new EmptyResultDataAccessException(1);
+		}
+		// Walk up to the top-most ancestor, then create the directories from the root down
+		Deque<DirectoryRow> ancestry = new ArrayDeque<>();
+		for (DirectoryRow row = rows.get(id); row != null; row = rows.get(row.parentId())) {
+			ancestry.push(row);
+		}
+		return createDirectories(ancestry);
+	}
+
+	/**
+	 * Creates the chain of directories described by the rows.
+	 * @param ancestry the rows, ordered from the top-most directory down
+	 * @return the bottom-most directory (or the root directory if there are no rows)
+	 */
+	private Directory createDirectories(Iterable<DirectoryRow> ancestry) {
+		Directory directory = Directory.ROOT_DIRECTORY;
+		for (DirectoryRow row : ancestry) {
+			directory = new Directory(row.name(), directory);
+			FieldUtils.setProtectedFieldValue("id", directory, row.id());
+		}
+		return directory;
 	}
 
 	public AbstractElement[] findElements(Directory directory) {
 		Assert.notNull(directory, "Directory required (the ID can be null to refer to root)");
 		if (directory.getId() == null) {
 			List<Directory> directories = getJdbcTemplate().query(SELECT_FROM_DIRECTORY_NULL,
-					(rs, rowNumber) -> getDirectoryWithImmediateParentPopulated(rs.getLong("id")));
+					(rs, rowNumber) -> createDirectory(rs, Directory.ROOT_DIRECTORY));
 			return directories.toArray(new AbstractElement[] {});
 		}
+		// Every element shares the one parent instance, so its ancestors are loaded once
+		Directory parent = getDirectoryWithAncestorsPopulated(directory.getId());
 		List<AbstractElement> directories = getJdbcTemplate().query(SELECT_FROM_DIRECTORY,
-				new Object[] { directory.getId() },
-				(rs, rowNumber) -> getDirectoryWithImmediateParentPopulated(rs.getLong("id")));
-		List<File> files = getJdbcTemplate().query(SELECT_FROM_FILE, new Object[] { directory.getId() },
-				(rs, rowNumber) -> {
-					Long parentDirectoryId = rs.getLong("parent_directory_id");
-					Directory parentDirectory = null;
-					if (parentDirectoryId != null) {
-						parentDirectory = getDirectoryWithImmediateParentPopulated(parentDirectoryId);
-					}
-					File file = new File(rs.getString("file_name"), parentDirectory);
-					FieldUtils.setProtectedFieldValue("id", file, rs.getLong("id"));
-					return file;
-				});
+				(rs, rowNumber) -> createDirectory(rs, parent), directory.getId());
+		List<File> files = getJdbcTemplate().query(SELECT_FROM_FILE, (rs, rowNumber) -> createFile(rs, parent),
+				directory.getId());
 		// Add the File elements after the Directory elements
 		directories.addAll(files);
 		return directories.toArray(new AbstractElement[] {});
 	}
 
+	public AbstractElement[] findDescendants(Directory directory) {
+		Assert.notNull(directory, "Directory required (use the root directory to refer to root)");
+		Directory base = getDirectoryWithAncestorsPopulated(directory.getId());
+		Map<Long, Directory> directories = findDirectoriesBeneath(base);
+		List<AbstractElement> elements = new ArrayList<>(directories.values());
+		elements.addAll(findFilesBeneath(base, directories));
+		return elements.toArray(new AbstractElement[] {});
+	}
+
+	public File[] findFilesBeneath(Directory directory) {
+		Assert.notNull(directory, "Directory required (use the root directory to refer to root)");
+		Directory base = getDirectoryWithAncestorsPopulated(directory.getId());
+		return findFilesBeneath(base, findDirectoriesBeneath(base)).toArray(new File[] {});
+	}
+
+	/**
+	 * Loads every directory beneath the base directory using a single range scan over
+	 * the full names. As parents sort before their children, each directory's parent
+	 * has always been created by the time the directory itself is read.
+	 * @param base the directory, whose parents are fully populated
+	 * @return the directories keyed by their identifier, in full name order
+	 */
+	private Map<Long, Directory> findDirectoriesBeneath(Directory base) {
+		Map<Long, Directory> directories = new LinkedHashMap<>();
+		getJdbcTemplate().query(SELECT_DIRECTORIES_BENEATH, (rs) -> {
+			Long parentId = rs.getLong("parent_directory_id");
+			Directory parent = base.getId().equals(parentId) ? base : directories.get(parentId);
+			directories.put(rs.getLong("id"), createDirectory(rs, parent));
+		}, fullNamesBeneath(base));
+		return directories;
+	}
+
+	private List<File> findFilesBeneath(Directory base, Map<Long, Directory> directories) {
+		return getJdbcTemplate().query(SELECT_FILES_BENEATH, (rs, rowNumber) -> {
+			Long parentId = rs.getLong("parent_directory_id");
+			return createFile(rs, base.getId().equals(parentId) ? base : directories.get(parentId));
+		}, fullNamesBeneath(base));
+	}
+
+	/**
+	 * Returns the bounds of the full names beneath a directory. They all start with the
+	 * directory's full name followed by a "/", so they sort at or after that prefix and
+	 * before the prefix whose "/" is replaced by the next character, "0".
+	 */
+	private static Object[] fullNamesBeneath(Directory directory) {
+		String fullName = directory.getFullName();
+		String prefix = fullName.endsWith("/") ? fullName.substring(0, fullName.length() - 1) : fullName;
+		return new Object[] { prefix + "/", prefix + "0" };
+	}
+
+	public AbstractElement findElement(String fullName) {
+		Assert.hasText(fullName, "Full name required");
+		Assert.isTrue(fullName.startsWith("/"), "Full name must start with /");
+		if (fullName.equals(Directory.ROOT_DIRECTORY.getFullName())) {
+			return Directory.ROOT_DIRECTORY;
+		}
+		// The full names of the element's ancestors are all prefixes of its own
+		List<String> fullNames = new ArrayList<>();
+		for (int end = fullName.indexOf('/', 1); end != -1; end = fullName.indexOf('/', end + 1)) {
+			fullNames.add(fullName.substring(0, end));
+		}
+		fullNames.add(fullName);
+		String placeholders = String.join(",", Collections.nCopies(fullNames.size(), "?"));
+		String sql = String.format(SELECT_DIRECTORIES_BY_FULL_NAME, placeholders);
+		List<DirectoryRow> ancestry = getJdbcTemplate().query(sql, this::mapDirectoryRow, fullNames.toArray());
+		Long parentId = Directory.ROOT_DIRECTORY.getId();
+		for (DirectoryRow row : ancestry) {
+			if (!parentId.equals(row.parentId())) {
+				return null;
+			}
+			parentId = row.id();
+		}
+		Directory directory = createDirectories(ancestry);
+		if (ancestry.size() == fullNames.size()) {
+			return directory;
+		}
+		if (ancestry.size() < fullNames.size() - 1) {
+			return null;
+		}
+		List<File> files = getJdbcTemplate().query(SELECT_FILE_BY_FULL_NAME,
+				(rs, rowNumber) -> createFile(rs, directory), fullName);
+		return files.isEmpty() ? null : files.get(0);
+	}
+
+	private DirectoryRow mapDirectoryRow(ResultSet rs, int rowNumber) throws SQLException {
+		Long parentId = rs.getObject("parent_directory_id", Long.class);
+		return new DirectoryRow(rs.getLong("id"), rs.getString("directory_name"), parentId);
+	}
+
+	private Directory createDirectory(ResultSet rs, Directory parent) throws SQLException {
+		Directory directory = new Directory(rs.getString("directory_name"), parent);
+		FieldUtils.setProtectedFieldValue("id", directory, rs.getLong("id"));
+		return directory;
+	}
+
+	private File createFile(ResultSet rs, Directory parent) throws SQLException {
+		File file = new File(rs.getString("file_name"), parent);
+		FieldUtils.setProtectedFieldValue("id", file, rs.getLong("id"));
+		return file;
+	}
+
 	public void update(File file) {
 		Assert.notNull(file, "File required");
 		Assert.notNull(file.getId(), "File ID required");
 		getJdbcTemplate().update(UPDATE_FILE, new Object[] { file.getContent(), file.getId() });
 	}
 
+	private record DirectoryRow(Long id, String name, Long parentId) {
+
+	}
+
 }
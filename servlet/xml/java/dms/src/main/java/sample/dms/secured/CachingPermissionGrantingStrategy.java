@@ -0,0 +1,268 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.dms.secured;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.security.acls.domain.AuditLogger;
+import org.springframework.security.acls.domain.DefaultPermissionGrantingStrategy;
+import org.springframework.security.acls.model.AccessControlEntry;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.PermissionGrantingStrategy;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.util.Assert;
+
+/**
+ * Remembers the decisions of a {@link DefaultPermissionGrantingStrategy}, so that the ACL
+ * inheritance chain of a deeply nested element is only walked the first time a given
+ * set of sids asks for a given set of permissions on it.
+ *
+ * <p>
+ * Each decision records the object identities of the ACL it was made for and of all of
+ * that ACL's parents, and each of those object identities is indexed to the decisions
+ * depending on it. {@link #evict(ObjectIdentity)} looks up and drops every decision that
+ * depends on the presented object identity, which is the whole subtree beneath it.
+ *
+ * <p>
+ * An ACL can change while a decision is being made from it. Every eviction bumps a
+ * generation for the evicted object identity, and a decision is only remembered if none
+ * of the generations of its ACL and of that ACL's parents changed while it was made.
+ * Decisions are also forgotten after a time to live, should an ACL ever change without
+ * being evicted.
+ *
+ * <p>
+ * Each decision also records the entries that were audited while it was made, and
+ * these are handed to the {@link AuditLogger} again whenever the decision is served from
+ * the cache, so that auditing is the same as without the cache.
+ *
+ * @see PermissionEvictingAclCache
+ */
+public class CachingPermissionGrantingStrategy implements PermissionGrantingStrategy {
+
+	private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+	private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	// striped by object identity, so that it stays the same size however many ACLs change
+	private static final int GENERATIONS = 1024;
+
+	private final PermissionGrantingStrategy delegate;
+
+	private final AuditLogger auditLogger;
+
+	private final Cache<DecisionKey, Decision> decisions;
+
+	private final Map<ObjectIdentity, Set<DecisionKey>> dependents = new ConcurrentHashMap<>();
+
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+	// the audits of the decision being made on this thread, if any
+	private final ThreadLocal<List<Audit>> audits = new ThreadLocal<>();
+
+	public CachingPermissionGrantingStrategy(AuditLogger auditLogger) {
+		this(auditLogger, DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public CachingPermissionGrantingStrategy(AuditLogger auditLogger, int maximumSize) {
+		this(auditLogger, maximumSize, DEFAULT_TIME_TO_LIVE);
+	}
+
+	public CachingPermissionGrantingStrategy(AuditLogger auditLogger, int maximumSize, Duration timeToLive) {
+		Assert.notNull(auditLogger, "AuditLogger required");
+		Assert.notNull(timeToLive, "timeToLive required");
+		this.auditLogger = auditLogger;
+		this.delegate = new DefaultPermissionGrantingStrategy(this::audit);
+		this.decisions = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(timeToLive)
+			.<DecisionKey, Decision>evictionListener((key, decision, cause) -> unindex(key, decision))
+			.build();
+	}
+
+	@Override
+	public boolean isGranted(Acl acl, List<Permission> permission, List<Sid> sids, boolean administrativeMode) {
+		DecisionKey key = new DecisionKey(acl.getObjectIdentity(), permission, sids, administrativeMode);
+		Decision decision = this.decisions.getIfPresent(key);
+		if (decision == null) {
+			Set<ObjectIdentity> ancestry = ancestry(acl);
+			long generation = generation(ancestry);
+			Decision decided = decide(acl, permission, sids, administrativeMode, ancestry);
+			this.decisions.asMap().compute(key, (k, previous) -> {
+				if (generation(ancestry) != generation) {
+					// an ACL changed while deciding, so the decision may be stale
+					return previous;
+				}
+				if (previous != null) {
+					unindex(k, previous);
+				}
+				index(k, decided);
+				return decided;
+			});
+			if (generation(ancestry) != generation) {
+				// an ACL changed after the check above, maybe before its eviction
+				// could see the decision in the index
+				this.decisions.asMap().computeIfPresent(key, (k, remembered) -> {
+					if (remembered != decided) {
+						return remembered;
+					}
+					unindex(k, remembered);
+					return null;
+				});
+			}
+			decision = decided;
+		}
+		for (Audit audit : decision.audits()) {
+			audit(audit.granted(), audit.ace());
+		}
+		if (decision.granted() == null) {
+			throw new NotFoundException("Unable to locate a matching ACE for passed permissions and SIDs");
+		}
+		return decision.granted();
+	}
+
+	private Decision decide(Acl acl, List<Permission> permission, List<Sid> sids, boolean administrativeMode,
+			Set<ObjectIdentity> ancestry) {
+		List<Audit> enclosing = this.audits.get();
+		List<Audit> audits = new ArrayList<>();
+		this.audits.set(audits);
+		try {
+			return new Decision(this.delegate.isGranted(acl, permission, sids, administrativeMode), ancestry,
+					audits);
+		}
+		catch (NotFoundException ex) {
+			return new Decision(null, ancestry, audits);
+		}
+		finally {
+			this.audits.set(enclosing);
+		}
+	}
+
+	private static Set<ObjectIdentity> ancestry(Acl acl) {
+		Set<ObjectIdentity> ancestry = new HashSet<>();
+		for (Acl current = acl; current != null; current = current.getParentAcl()) {
+			ancestry.add(current.getObjectIdentity());
+		}
+		return ancestry;
+	}
+
+	/**
+	 * Sums the generations of the object identities, which only ever grow, so the sum
+	 * changes whenever any of them is evicted.
+	 */
+	private long generation(Set<ObjectIdentity> objectIdentities) {
+		long generation = 0;
+		for (ObjectIdentity objectIdentity : objectIdentities) {
+			generation += this.generations.get(stripe(objectIdentity));
+		}
+		return generation;
+	}
+
+	private static int stripe(ObjectIdentity objectIdentity) {
+		return Math.floorMod(objectIdentity.hashCode(), GENERATIONS);
+	}
+
+	/**
+	 * Records the audit when a decision is being made on this thread, which is also the
+	 * case when a parent ACL is consulted on behalf of its child, and otherwise logs it.
+	 */
+	private void audit(boolean granted, AccessControlEntry ace) {
+		List<Audit> audits = this.audits.get();
+		if (audits != null) {
+			audits.add(new Audit(granted, ace));
+		}
+		else {
+			this.auditLogger.logIfNeeded(granted, ace);
+		}
+	}
+
+	private void index(DecisionKey key, Decision decision) {
+		for (ObjectIdentity objectIdentity : decision.ancestry()) {
+			this.dependents.computeIfAbsent(objectIdentity, (oid) -> ConcurrentHashMap.newKeySet()).add(key);
+		}
+	}
+
+	private void unindex(DecisionKey key, Decision decision) {
+		for (ObjectIdentity objectIdentity : decision.ancestry()) {
+			this.dependents.computeIfPresent(objectIdentity, (oid, keys) -> {
+				keys.remove(key);
+				return keys.isEmpty() ? null : keys;
+			});
+		}
+	}
+
+	/**
+	 * Drops every decision made for the object identity or for any of its descendants.
+	 * @param objectIdentity the object identity whose ACL has changed
+	 */
+	public void evict(ObjectIdentity objectIdentity) {
+		// before looking up the dependents, so that a decision indexed after the lookup
+		// sees the new generation
+		this.generations.incrementAndGet(stripe(objectIdentity));
+		Set<DecisionKey> keys = this.dependents.remove(objectIdentity);
+		if (keys == null) {
+			return;
+		}
+		for (DecisionKey key : keys) {
+			this.decisions.asMap().computeIfPresent(key, (k, decision) -> {
+				unindex(k, decision);
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Drops every decision.
+	 */
+	public void clear() {
+		for (int i = 0; i < GENERATIONS; i++) {
+			this.generations.incrementAndGet(i);
+		}
+		this.decisions.invalidateAll();
+		this.dependents.clear();
+	}
+
+	private record DecisionKey(ObjectIdentity objectIdentity, List<Permission> permission, List<Sid> sids,
+			boolean administrativeMode) {
+
+	}
+
+	/**
+	 * The outcome of a decision, where a {@code null} outcome means that no entry
+	 * applied.
+	 */
+	private record Decision(Boolean granted, Set<ObjectIdentity> ancestry, List<Audit> audits) {
+
+	}
+
+	private record Audit(boolean granted, AccessControlEntry ace) {
+
+	}
+
+}
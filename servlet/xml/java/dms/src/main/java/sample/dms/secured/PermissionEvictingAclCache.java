@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.dms.secured;
+
+import java.io.Serializable;
+
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.MutableAcl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AclCache} that also drops the decisions a
+ * {@link CachingPermissionGrantingStrategy} has made based on an ACL, whenever that ACL
+ * is evicted.
+ *
+ * <p>
+ * {@link org.springframework.security.acls.jdbc.JdbcMutableAclService} evicts an ACL
+ * whenever it updates or deletes it, so this keeps the cached decisions of the ACL and
+ * of everything inheriting from it in step with the database.
+ */
+public class PermissionEvictingAclCache implements AclCache {
+
+	private final AclCache delegate;
+
+	private final CachingPermissionGrantingStrategy permissionGrantingStrategy;
+
+	public PermissionEvictingAclCache(AclCache delegate,
+			CachingPermissionGrantingStrategy permissionGrantingStrategy) {
+		Assert.notNull(delegate, "AclCache required");
+		Assert.notNull(permissionGrantingStrategy, "CachingPermissionGrantingStrategy required");
+		this.delegate = delegate;
+		this.permissionGrantingStrategy = permissionGrantingStrategy;
+	}
+
+	@Override
+	public void evictFromCache(Serializable pk) {
+		MutableAcl acl = this.delegate.getFromCache(pk);
+		if (acl != null) {
+			this.permissionGrantingStrategy.evict(acl.getObjectIdentity());
+		}
+		this.delegate.evictFromCache(pk);
+	}
+
+	@Override
+	public void evictFromCache(ObjectIdentity objectIdentity) {
+		this.permissionGrantingStrategy.evict(objectIdentity);
+		this.delegate.evictFromCache(objectIdentity);
+	}
+
+	@Override
+	public MutableAcl getFromCache(ObjectIdentity objectIdentity) {
+		return this.delegate.getFromCache(objectIdentity);
+	}
+
+	@Override
+	public MutableAcl getFromCache(Serializable pk) {
+		return this.delegate.getFromCache(pk);
+	}
+
+	@Override
+	public void putInCache(MutableAcl acl) {
+		this.delegate.putInCache(acl);
+	}
+
+	@Override
+	public void clearCache() {
+		this.permissionGrantingStrategy.clear();
+		this.delegate.clearCache();
+	}
+
+}
@@ -16,8 +16,14 @@
 
 package sample.dms.secured;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import sample.dms.AbstractElement;
+import sample.dms.Directory;
 import sample.dms.DocumentDaoImpl;
+import sample.dms.secured.BulkAclWriter.AceDefinition;
+import sample.dms.secured.BulkAclWriter.AclDefinition;
 
 import org.springframework.security.acls.domain.BasePermission;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
@@ -25,6 +31,7 @@ import org.springframework.security.acls.domain.PrincipalSid;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.MutableAclService;
 import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.Assert;
 
@@ -40,6 +47,8 @@ public class SecureDocumentDaoImpl extends DocumentDaoImpl implements SecureDocu
 
 	private final MutableAclService mutableAclService;
 
+	private BulkAclWriter aclWriter;
+
 	public SecureDocumentDaoImpl(MutableAclService mutableAclService) {
 		Assert.notNull(mutableAclService, "MutableAclService required");
 		this.mutableAclService = mutableAclService;
@@ -70,4 +79,23 @@ public class SecureDocumentDaoImpl extends DocumentDaoImpl implements SecureDocu
 		this.mutableAclService.updateAcl(acl);
 	}
 
+	public void createAll(Directory parent, List<? extends AbstractElement> elements) {
+		super.createAll(parent, elements);
+
+		// Resolve the parent's ACL once, and create every child's ACL against it in bulk
+		MutableAcl aclParent = (MutableAcl) this.mutableAclService.readAclById(new ObjectIdentityImpl(parent));
+		Sid owner = new PrincipalSid(SecurityContextHolder.getContext().getAuthentication());
+		List<AceDefinition> entries = List.of(new AceDefinition(owner, BasePermission.ADMINISTRATION, true));
+		List<AclDefinition> acls = new ArrayList<>(elements.size());
+		for (AbstractElement element : elements) {
+			acls.add(new AclDefinition(new ObjectIdentityImpl(element), aclParent, owner, entries));
+		}
+		this.aclWriter.createAcls(acls);
+	}
+
+	@Override
+	protected void initDao() {
+		this.aclWriter = new BulkAclWriter(getDataSource());
+	}
+
 }
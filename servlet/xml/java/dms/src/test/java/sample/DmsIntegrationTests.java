@@ -38,6 +38,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import sample.dms.AbstractElement;
 import sample.dms.Directory;
 import sample.dms.DocumentDao;
+import sample.dms.File;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -98,6 +99,57 @@ class DmsIntegrationTests {
 		process("dianne", "emu", false);
 	}
 
+	@Test
+	void testElementsShareFullyPopulatedParent() {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		Directory home = null;
+		for (AbstractElement rootElement : this.documentDao.findElements(Directory.ROOT_DIRECTORY)) {
+			if (rootElement.getName().equals("rod")) {
+				home = (Directory) rootElement;
+			}
+		}
+		Directory shared = null;
+		for (AbstractElement homeElement : this.documentDao.findElements(home)) {
+			if (homeElement.getName().equals("shared")) {
+				shared = (Directory) homeElement;
+			}
+		}
+		AbstractElement[] sharedElements = this.documentDao.findElements(shared);
+		assertThat(sharedElements).hasSize(10);
+		AbstractElement parent = sharedElements[0].getParent();
+		assertThat(sharedElements).allSatisfy((element) -> assertThat(element.getParent()).isSameAs(parent));
+		assertThat(parent.getFullName()).isEqualTo("/rod/shared");
+		assertThat(parent.getParent().getParent()).isSameAs(Directory.ROOT_DIRECTORY);
+	}
+
+	@Test
+	void testFindDescendantsByFullName() {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		Directory home = (Directory) this.documentDao.findElement("/rod");
+		AbstractElement[] descendants = this.documentDao.findDescendants(home);
+		assertThat(descendants).hasSize(32); // confidential and shared, plus 30 files
+		assertThat(descendants[0].getFullName()).isEqualTo("/rod/confidential");
+		assertThat(descendants[1].getFullName()).isEqualTo("/rod/shared");
+		assertThat(descendants).allSatisfy((element) -> assertThat(element.getFullName()).startsWith("/rod/"));
+		File[] files = this.documentDao.findFilesBeneath(home);
+		assertThat(files).hasSize(30);
+		assertThat(files).extracting((file) -> file.getParent().getFullName())
+			.containsOnly("/rod", "/rod/confidential", "/rod/shared");
+	}
+
+	@Test
+	void testFindElementByFullName() {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		AbstractElement file = this.documentDao.findElement("/rod/shared/file_3.txt");
+		assertThat(file).isInstanceOf(File.class);
+		assertThat(file.getFullName()).isEqualTo("/rod/shared/file_3.txt");
+		assertThat(file.getParent().getFullName()).isEqualTo("/rod/shared");
+		assertThat(file.getParent().getParent().getParent()).isSameAs(Directory.ROOT_DIRECTORY);
+		assertThat(this.documentDao.findElement("/rod/shared")).isInstanceOf(Directory.class);
+		assertThat(this.documentDao.findElement("/rod/missing")).isNull();
+		assertThat(this.documentDao.findElement("/missing/shared/file_3.txt")).isNull();
+	}
+
 	protected void process(String username, String password, boolean shouldBeFiltered) {
 		SecurityContextHolder.getContext()
 			.setAuthentication(new UsernamePasswordAuthenticationToken(username, password));
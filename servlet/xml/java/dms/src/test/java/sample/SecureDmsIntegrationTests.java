@@ -17,7 +17,16 @@
 package sample;
 
 import org.junit.jupiter.api.Test;
+import sample.dms.Directory;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.MutableAcl;
+import org.springframework.security.acls.model.MutableAclService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ContextConfiguration;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +41,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 		locations = { "classpath:applicationContext-dms-shared.xml", "classpath:applicationContext-dms-secure.xml" })
 class SecureDmsIntegrationTests extends DmsIntegrationTests {
 
+	@Autowired
+	private MutableAclService aclService;
+
 	@Override
 	@Test
 	void testBasePopulation() {
@@ -50,6 +62,34 @@ class SecureDmsIntegrationTests extends DmsIntegrationTests {
 		assertThat(this.jdbcTemplate.queryForObject("select count(id) from ACL_ENTRY", Integer.class)).isEqualTo(115);
 	}
 
+	@Test
+	void testInheritedDecisionsFollowAncestorUpdates() {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		Directory home = (Directory) this.documentDao.findElement("/rod");
+		Directory confidential = (Directory) this.documentDao.findElement("/rod/confidential");
+		MutableAcl acl = (MutableAcl) this.aclService.readAclById(new ObjectIdentityImpl(confidential));
+
+		// The files in rod's confidential directory inherit its denial of ROLE_USER
+		SecurityContextHolder.getContext()
+			.setAuthentication(new UsernamePasswordAuthenticationToken("scott", "wombat"));
+		assertThat(this.documentDao.findFilesBeneath(home)).hasSize(20);
+
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		acl.insertAce(0, BasePermission.READ, new PrincipalSid("scott"), true);
+		acl = this.aclService.updateAcl(acl);
+		try {
+			SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken("scott", "wombat"));
+			assertThat(this.documentDao.findFilesBeneath(home)).hasSize(30);
+		}
+		finally {
+			SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken("rod", "koala"));
+			acl.deleteAce(0);
+			this.aclService.updateAcl(acl);
+		}
+	}
+
 	@Override
 	@Test
 	void testMarissaRetrieval() {
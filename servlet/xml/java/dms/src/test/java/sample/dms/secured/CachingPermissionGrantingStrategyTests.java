@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sample.dms.secured;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.acls.domain.AccessControlEntryImpl;
+import org.springframework.security.acls.domain.BasePermission;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.AccessControlEntry;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CachingPermissionGrantingStrategy}.
+ */
+class CachingPermissionGrantingStrategyTests {
+
+	private final ObjectIdentity objectIdentity = new ObjectIdentityImpl("sample.dms.Directory", 1L);
+
+	private final List<Permission> read = List.of(BasePermission.READ);
+
+	private final List<Sid> sids = List.of(new PrincipalSid("rod"));
+
+	private final CachingPermissionGrantingStrategy strategy = new CachingPermissionGrantingStrategy(
+			(granted, ace) -> {
+			});
+
+	private final Acl acl = mock(Acl.class);
+
+	private final AccessControlEntry granting = new AccessControlEntryImpl(1L, this.acl, this.sids.get(0),
+			BasePermission.READ, true, false, false);
+
+	private final AccessControlEntry denying = new AccessControlEntryImpl(2L, this.acl, this.sids.get(0),
+			BasePermission.READ, false, false, false);
+
+	@Test
+	void isGrantedWhenRememberedThenDoesNotDecideAgain() {
+		given(this.acl.getObjectIdentity()).willReturn(this.objectIdentity);
+		given(this.acl.getEntries()).willReturn(List.of(this.granting));
+
+		assertThat(this.strategy.isGranted(this.acl, this.read, this.sids, false)).isTrue();
+		assertThat(this.strategy.isGranted(this.acl, this.read, this.sids, false)).isTrue();
+
+		verify(this.acl, times(1)).getEntries();
+	}
+
+	@Test
+	void isGrantedWhenEvictedThenDecidesAgain() {
+		given(this.acl.getObjectIdentity()).willReturn(this.objectIdentity);
+		given(this.acl.getEntries()).willReturn(List.of(this.granting), List.of(this.denying));
+		this.strategy.isGranted(this.acl, this.read, this.sids, false);
+
+		this.strategy.evict(this.objectIdentity);
+
+		assertThat(this.strategy.isGranted(this.acl, this.read, this.sids, false)).isFalse();
+	}
+
+	@Test
+	void isGrantedWhenAclChangesWhileDecidingThenStaleDecisionNotRemembered() throws Exception {
+		CountDownLatch deciding = new CountDownLatch(1);
+		CountDownLatch updated = new CountDownLatch(1);
+		given(this.acl.getObjectIdentity()).willReturn(this.objectIdentity);
+		given(this.acl.getEntries()).willAnswer((invocation) -> {
+			deciding.countDown();
+			updated.await();
+			return List.of(this.granting);
+		}).willReturn(List.of(this.denying));
+
+		CompletableFuture<Boolean> stale = CompletableFuture
+			.supplyAsync(() -> this.strategy.isGranted(this.acl, this.read, this.sids, false));
+		assertThat(deciding.await(10, TimeUnit.SECONDS)).isTrue();
+		this.strategy.evict(this.objectIdentity);
+		updated.countDown();
+
+		assertThat(stale.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.strategy.isGranted(this.acl, this.read, this.sids, false)).isFalse();
+	}
+
+	@Test
+	void isGrantedWhenAclUpdatedConcurrentlyThenEventuallyDecidesFromLatestAcl() throws Exception {
+		AtomicReference<List<AccessControlEntry>> entries = new AtomicReference<>(List.of(this.granting));
+		given(this.acl.getObjectIdentity()).willReturn(this.objectIdentity);
+		given(this.acl.getEntries()).willAnswer((invocation) -> entries.get());
+
+		for (int i = 0; i < 1000; i++) {
+			List<AccessControlEntry> update = (i % 2 == 0) ? List.of(this.denying) : List.of(this.granting);
+			CompletableFuture<Boolean> check = CompletableFuture
+				.supplyAsync(() -> this.strategy.isGranted(this.acl, this.read, this.sids, false));
+			CompletableFuture<Void> change = CompletableFuture.runAsync(() -> {
+				entries.set(update);
+				this.strategy.evict(this.objectIdentity);
+			});
+			CompletableFuture.allOf(check, change).get(10, TimeUnit.SECONDS);
+
+			assertThat(this.strategy.isGranted(this.acl, this.read, this.sids, false))
+				.isEqualTo(update.get(0).isGranting());
+		}
+	}
+
+}